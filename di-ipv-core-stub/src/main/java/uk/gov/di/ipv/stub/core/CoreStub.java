@@ -9,6 +9,7 @@ import uk.gov.di.ipv.stub.core.config.CoreStubConfig;
 import uk.gov.di.ipv.stub.core.handlers.BasicAuthHandler;
 import uk.gov.di.ipv.stub.core.handlers.CoreStubHandler;
 import uk.gov.di.ipv.stub.core.utils.HandlerHelper;
+import uk.gov.di.ipv.stub.core.utils.StaticAssets;
 import uk.gov.di.ipv.stub.core.utils.ViewHelper;
 
 import java.text.ParseException;
@@ -22,8 +23,8 @@ public class CoreStub {
     public CoreStub() throws Exception {
         CoreStubConfig.initUATUsers();
         CoreStubConfig.initCRIS();
-        Spark.staticFileLocation("/public");
         Spark.port(Integer.parseInt(CoreStubConfig.CORE_STUB_PORT));
+        StaticAssets.PUBLIC.addRoutes();
         initRoutes();
     }
 
@@ -46,6 +47,7 @@ public class CoreStub {
         Spark.get("/callback", coreStubHandler.doCallback);
         Spark.get("/answers", coreStubHandler.answers);
         Spark.get("/.well-known/jwks.json", coreStubHandler.wellKnownJwksStub);
+        Spark.get("/metrics", coreStubHandler.metrics);
         setupBackendRoutes(coreStubHandler);
         Spark.exception(Exception.class, exceptionHandler());
     }
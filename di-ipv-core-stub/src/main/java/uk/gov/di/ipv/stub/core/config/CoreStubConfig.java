@@ -3,26 +3,27 @@ package uk.gov.di.ipv.stub.core.config;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.nimbusds.oauth2.sdk.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 import uk.gov.di.ipv.stub.core.config.credentialissuer.CredentialIssuer;
 import uk.gov.di.ipv.stub.core.config.credentialissuer.CredentialIssuerMapper;
 import uk.gov.di.ipv.stub.core.config.uatuser.Identity;
-import uk.gov.di.ipv.stub.core.config.uatuser.IdentityMapper;
+import uk.gov.di.ipv.stub.core.config.uatuser.IdentityLoader;
+import uk.gov.di.ipv.stub.core.config.uatuser.NameIndex;
 
 import java.io.FileInputStream;
-import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
-import java.util.function.BiConsumer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class CoreStubConfig {
     public static final String CORE_STUB_PORT = getConfigValue("CORE_STUB_PORT", "8085");
@@ -40,6 +41,10 @@ public class CoreStubConfig {
             getConfigValue("CORE_STUB_USER_DATA_PATH", "config/experian-uat-users-large.zip");
     public static final String CORE_STUB_CONFIG_FILE =
             getConfigValue("CORE_STUB_CONFIG_FILE", "/app/config/cris-dev.yaml");
+    public static final int CORE_STUB_CONFIG_RELOAD_SECONDS =
+            Integer.parseInt(getConfigValue("CORE_STUB_CONFIG_RELOAD_SECONDS", "10"));
+    public static final long CORE_STUB_JWKS_CACHE_SECONDS =
+            Long.parseLong(getConfigValue("CORE_STUB_JWKS_CACHE_SECONDS", "300"));
     public static final String CORE_STUB_SIGNING_PRIVATE_KEY_JWK_BASE64 =
             getConfigValue("CORE_STUB_SIGNING_PRIVATE_KEY_JWK_BASE64", null);
 
@@ -50,6 +55,12 @@ public class CoreStubConfig {
     public static final boolean CORE_STUB_CONFIG_AGED_DOB =
             Boolean.parseBoolean(getConfigValue("CORE_STUB_CONFIG_AGED_DOB", "true"));
     public static final String MAX_JAR_TTL_MINS = getConfigValue("MAX_JAR_TTL_MINS", "60");
+    public static final long CORE_STUB_STATE_TTL_MINS =
+            Long.parseLong(getConfigValue("CORE_STUB_STATE_TTL_MINS", "60"));
+    public static final int CORE_STUB_STATE_MAX_ENTRIES =
+            Integer.parseInt(getConfigValue("CORE_STUB_STATE_MAX_ENTRIES", "10000"));
+    public static final String CORE_STUB_STATE_ENCRYPTION_KEY =
+            System.getenv("CORE_STUB_STATE_ENCRYPTION_KEY");
 
     public static final boolean CORE_STUB_SHOW_VC =
             Boolean.parseBoolean(getConfigValue("CORE_STUB_SHOW_VC", "true"));
@@ -61,8 +72,12 @@ public class CoreStubConfig {
             Boolean.parseBoolean(getConfigValue("ENABLE_BASIC_AUTH", "false"));
 
     public static final List<Identity> identities = new ArrayList<>();
-    public static final List<CredentialIssuer> credentialIssuers = new ArrayList<>();
+    private static volatile NameIndex identityNameIndex = NameIndex.build(List.of());
+    private static volatile Identity[] identitiesByRowNumber = new Identity[0];
+    private static volatile CredentialIssuers credentialIssuers =
+            new CredentialIssuers(List.of(), Map.of(), null);
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoreStubConfig.class);
     private static final Gson gson = new Gson();
 
     public static String getConfigValue(String key, String defaultValue) {
@@ -81,33 +96,95 @@ public class CoreStubConfig {
         return CORE_STUB_BASIC_AUTH;
     }
 
+    // The CRI config is checked every CORE_STUB_CONFIG_RELOAD_SECONDS (0 turns this off) and
+    // reloaded when the file has changed. The CRI list and the lookup by id are replaced together
+    // in one write, so a request sees either the old config or the new one. A config that fails to
+    // load is logged and the previous one is kept.
     public static void initCRIS() throws IOException {
-        try (FileInputStream inputStream =
-                new FileInputStream(CoreStubConfig.CORE_STUB_CONFIG_FILE)) {
+        loadCRIS();
+        if (CORE_STUB_CONFIG_RELOAD_SECONDS > 0) {
+            ScheduledExecutorService scheduler =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "cri-config-reload");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            scheduler.scheduleWithFixedDelay(
+                    CoreStubConfig::reloadCRISIfChanged,
+                    CORE_STUB_CONFIG_RELOAD_SECONDS,
+                    CORE_STUB_CONFIG_RELOAD_SECONDS,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    public static List<CredentialIssuer> getCredentialIssuers() {
+        return credentialIssuers.list();
+    }
+
+    // Null when there is no CRI with the id
+    public static CredentialIssuer findCredentialIssuer(String id) {
+        return credentialIssuers.byId().get(id);
+    }
+
+    public static NameIndex getIdentityNameIndex() {
+        return identityNameIndex;
+    }
+
+    public static void initUATUsers() throws IOException {
+        identities.addAll(
+                IdentityLoader.load(Paths.get(CoreStubConfig.CORE_STUB_USER_DATA_PATH)));
+        identityNameIndex = NameIndex.build(identities);
+
+        // Each zip entry numbers its rows from the same start, so the first identity wins
+        int maxRowNumber = identities.stream().mapToInt(Identity::rowNumber).max().orElse(-1);
+        Identity[] byRowNumber = new Identity[maxRowNumber + 1];
+        for (Identity identity : identities) {
+            if (byRowNumber[identity.rowNumber()] == null) {
+                byRowNumber[identity.rowNumber()] = identity;
+            }
+        }
+        identitiesByRowNumber = byRowNumber;
+    }
+
+    // Null when there is no identity with the row number
+    public static Identity findIdentity(int rowNumber) {
+        Identity[] byRowNumber = identitiesByRowNumber;
+        return rowNumber >= 0 && rowNumber < byRowNumber.length ? byRowNumber[rowNumber] : null;
+    }
+
+    private static void loadCRIS() throws IOException {
+        Path configFile = Paths.get(CoreStubConfig.CORE_STUB_CONFIG_FILE);
+        FileTime lastModified = Files.getLastModifiedTime(configFile);
+        List<CredentialIssuer> list;
+        try (FileInputStream inputStream = new FileInputStream(configFile.toFile())) {
             Map<String, Object> obj = new Yaml().load(inputStream);
             CredentialIssuerMapper mapper = new CredentialIssuerMapper();
             List<Map> cis = (List<Map>) obj.get("credentialIssuerConfigs");
-            credentialIssuers.addAll(cis.stream().map(mapper::map).toList());
+            list = List.copyOf(cis.stream().map(mapper::map).toList());
         }
+        Map<String, CredentialIssuer> byId = new HashMap<>();
+        list.forEach(cri -> byId.putIfAbsent(cri.id(), cri));
+        credentialIssuers =
+                new CredentialIssuers(list, Collections.unmodifiableMap(byId), lastModified);
     }
 
-    public static void initUATUsers() throws IOException {
-        Path path = Paths.get(CoreStubConfig.CORE_STUB_USER_DATA_PATH);
-        try (InputStream is = Files.newInputStream(path)) {
-            readZip(
-                    is,
-                    (entry, zis) -> {
-                        if (entry.getName().endsWith(".json")) {
-                            Map map = new Gson().fromJson(new InputStreamReader(zis), Map.class);
-                            List people = (List) map.get("people");
-                            IdentityMapper identityMapper = new IdentityMapper();
-                            int rowNumber = 3; // starting row number in experian uat user sheet
-                            for (Object person : people) {
-                                Map personMap = (Map) person;
-                                identities.add(identityMapper.map(personMap, rowNumber++));
-                            }
-                        }
-                    });
+    private static void reloadCRISIfChanged() {
+        try {
+            FileTime lastModified =
+                    Files.getLastModifiedTime(Paths.get(CoreStubConfig.CORE_STUB_CONFIG_FILE));
+            if (!lastModified.equals(credentialIssuers.lastModified())) {
+                loadCRIS();
+                LOGGER.info(
+                        "Reloaded {} credential issuers from {}",
+                        credentialIssuers.list().size(),
+                        CORE_STUB_CONFIG_FILE);
+            }
+        } catch (Exception e) {
+            LOGGER.error(
+                    "Unable to reload credential issuers from {}, keeping the current config: {}",
+                    CORE_STUB_CONFIG_FILE,
+                    e.getMessage());
         }
     }
 
@@ -120,20 +197,8 @@ public class CoreStubConfig {
         return gson.fromJson(user_auth, type);
     }
 
-    private static void readZip(InputStream is, BiConsumer<ZipEntry, InputStream> consumer)
-            throws IOException {
-        try (ZipInputStream zipFile = new ZipInputStream(is)) {
-            ZipEntry entry;
-            while ((entry = zipFile.getNextEntry()) != null) {
-                consumer.accept(
-                        entry,
-                        new FilterInputStream(zipFile) {
-                            @Override
-                            public void close() throws IOException {
-                                zipFile.closeEntry();
-                            }
-                        });
-            }
-        }
-    }
+    private record CredentialIssuers(
+            List<CredentialIssuer> list,
+            Map<String, CredentialIssuer> byId,
+            FileTime lastModified) {}
 }
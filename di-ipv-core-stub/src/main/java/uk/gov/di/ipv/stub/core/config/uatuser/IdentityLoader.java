@@ -0,0 +1,214 @@
+package uk.gov.di.ipv.stub.core.config.uatuser;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Streams the Experian UAT users out of the zip straight into Identity records, rather than
+// parsing each person into a Map first. Values that repeat across people, such as towns, answers
+// and whole question sets, are shared between identities, and the JSON entries in the zip are
+// read in parallel. The identities are the same, in the same order, as IdentityMapper.map gives.
+public class IdentityLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdentityLoader.class);
+    private static final int FIRST_ROW_NUMBER = 3; // starting row number in experian uat user sheet
+    private static final LocalDate ADDRESS_VALID_FROM = LocalDate.of(2021, 1, 1);
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<Questions, Questions> questionSets = new ConcurrentHashMap<>();
+    // One per distinct date, so each identity pays only for a reference, as it would for an int
+    private final Map<String, FindDateOfBirth> datesOfBirth = new ConcurrentHashMap<>();
+
+    private IdentityLoader() {}
+
+    public static List<Identity> load(Path path) throws IOException {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<Identity> identities = new IdentityLoader().read(path);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOGGER.info(
+                "Loaded {} UAT users from {} in {} ms, heap use grew by about {} MB",
+                identities.size(),
+                path,
+                elapsedMillis,
+                (usedHeap() - heapBefore) / (1024 * 1024));
+        return identities;
+    }
+
+    private List<Identity> read(Path path) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            List<? extends ZipEntry> entries =
+                    zip.stream().filter(entry -> entry.getName().endsWith(".json")).toList();
+            return entries.parallelStream()
+                    .map(entry -> readEntry(zip, entry))
+                    .flatMap(List::stream)
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Identity> readEntry(ZipFile zip, ZipEntry entry) {
+        try (JsonReader reader =
+                new JsonReader(
+                        new BufferedReader(
+                                new InputStreamReader(
+                                        zip.getInputStream(entry), StandardCharsets.UTF_8)))) {
+            List<Identity> identities = new ArrayList<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"people".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                int rowNumber = FIRST_ROW_NUMBER;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    identities.add(readPerson(reader, rowNumber++));
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+            return identities;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Identity readPerson(JsonReader reader, int rowNumber) throws IOException {
+        String accountNumber = null;
+        String ctdbDatabase = null;
+        String houseNo = null;
+        String houseName = null;
+        String street = null;
+        String district = null;
+        String postTown = null;
+        String postcode = null;
+        String addressCountry = null;
+        String dob = null;
+        String name = null;
+        String initials = null;
+        String surname = null;
+        String numQuestionsAfterBusinessRules = null;
+        String numQuestionsTotal = null;
+        List<Question> questions = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            switch (field) {
+                case "accountNumber" -> accountNumber = nextString(reader);
+                case "ctdbDatabase" -> ctdbDatabase = nextShared(reader);
+                case "houseNo" -> houseNo = nextHouseNo(reader);
+                case "houseName" -> houseName = nextShared(reader);
+                case "street" -> street = nextShared(reader);
+                case "district" -> district = nextShared(reader);
+                case "postTown" -> postTown = nextShared(reader);
+                case "postcode" -> postcode = nextShared(reader);
+                case "addressCountry" -> addressCountry = nextShared(reader);
+                case "dob" -> dob = nextShared(reader);
+                case "name" -> name = nextShared(reader);
+                case "initials" -> initials = nextShared(reader);
+                case "surname" -> surname = nextShared(reader);
+                case "noOfQuestionsAfterApplyingBusinessRules" ->
+                        numQuestionsAfterBusinessRules = nextString(reader);
+                case "noOfQuestionsTotal" -> numQuestionsTotal = nextString(reader);
+                default -> {
+                    if (field.toLowerCase(Locale.ROOT).startsWith("q0")) {
+                        questions.add(new Question(share(field), new Answer(nextShared(reader))));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            }
+        }
+        reader.endObject();
+
+        UKAddress address =
+                new UKAddress(
+                        houseNo,
+                        houseName,
+                        street,
+                        district,
+                        postTown,
+                        postcode,
+                        ADDRESS_VALID_FROM,
+                        null,
+                        addressCountry);
+
+        return new Identity(
+                rowNumber,
+                accountNumber,
+                ctdbDatabase,
+                List.of(address),
+                datesOfBirth.computeIfAbsent(dob, IdentityLoader::parseDateOfBirth),
+                new FullName(name, initials, surname),
+                questionSet(questions, numQuestionsAfterBusinessRules, numQuestionsTotal),
+                null);
+    }
+
+    private Questions questionSet(
+            List<Question> questions, String numAfterBusinessRules, String numTotal) {
+        Questions questionSet =
+                new Questions(
+                        List.copyOf(questions),
+                        numAfterBusinessRules == null ? 0 : Integer.parseInt(numAfterBusinessRules),
+                        numTotal == null ? 0 : Integer.parseInt(numTotal));
+        return questionSets.computeIfAbsent(questionSet, key -> key);
+    }
+
+    // Gson reads a numeric house number as a double, which IdentityMapper rounds to an int
+    private String nextHouseNo(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NUMBER) {
+            return String.valueOf((int) Math.round(reader.nextDouble()));
+        }
+        return nextShared(reader);
+    }
+
+    private String nextShared(JsonReader reader) throws IOException {
+        String value = nextString(reader);
+        return value == null ? null : share(value);
+    }
+
+    private String share(String value) {
+        String shared = strings.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static FindDateOfBirth parseDateOfBirth(String dob) {
+        Instant instant = LocalDate.parse(dob).atStartOfDay().toInstant(ZoneOffset.UTC);
+        return new FindDateOfBirth(instant, instant);
+    }
+
+    // Only an estimate, as no GC is requested and the growth includes garbage not yet collected
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
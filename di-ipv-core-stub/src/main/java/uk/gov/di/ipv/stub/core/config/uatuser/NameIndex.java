@@ -0,0 +1,148 @@
+package uk.gov.di.ipv.stub.core.config.uatuser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Trigram index over the lower case full names of the UAT identities, built once after they are
+// loaded. A search term can only match a name that contains every trigram of the term, so the
+// candidates are the intersection of those trigrams' posting lists, which are sorted arrays of
+// positions in the identity list. Each candidate is then checked with contains, as the full scan
+// did, which also covers terms shorter than a trigram.
+public class NameIndex {
+    private static final int GRAM = 3;
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final List<Identity> identities;
+    private final String[] names;
+    private final Map<Long, int[]> postings;
+
+    private NameIndex(List<Identity> identities, String[] names, Map<Long, int[]> postings) {
+        this.identities = identities;
+        this.names = names;
+        this.postings = postings;
+    }
+
+    public static NameIndex build(List<Identity> identities) {
+        List<Identity> indexed = List.copyOf(identities);
+        String[] names = new String[indexed.size()];
+        Map<Long, PostingList> building = new HashMap<>();
+        for (int position = 0; position < names.length; position++) {
+            String name = indexed.get(position).name().fullName().toLowerCase(Locale.ROOT);
+            names[position] = name;
+            // Search terms never contain a space, so only trigrams within a name part are needed
+            for (String part : name.split(" ")) {
+                for (int i = 0; i + GRAM <= part.length(); i++) {
+                    building.computeIfAbsent(trigram(part, i), key -> new PostingList())
+                            .add(position);
+                }
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(building.size() * 2);
+        building.forEach((trigram, postingList) -> postings.put(trigram, postingList.toArray()));
+        return new NameIndex(indexed, names, postings);
+    }
+
+    // Returns up to limit matches in identity list order, with the total number of matches
+    public Matches search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return new Matches(List.of(), 0);
+        }
+        String[] terms = query.toLowerCase(Locale.ROOT).split(" ");
+
+        List<int[]> termPostings = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                termPostings.add(postings.getOrDefault(trigram(term, i), NO_POSITIONS));
+            }
+        }
+        int[] candidates = intersect(termPostings);
+
+        List<Identity> matches = new ArrayList<>(Math.min(limit, 64));
+        int total = 0;
+        int candidateCount = candidates == null ? names.length : candidates.length;
+        for (int i = 0; i < candidateCount; i++) {
+            int position = candidates == null ? i : candidates[i];
+            if (containsAll(names[position], terms)) {
+                if (total < limit) {
+                    matches.add(identities.get(position));
+                }
+                total++;
+            }
+        }
+        return new Matches(matches, total);
+    }
+
+    // Null when there is nothing to intersect, meaning every position is a candidate
+    private static int[] intersect(List<int[]> lists) {
+        if (lists.isEmpty()) {
+            return null;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] smaller, int[] larger) {
+        int[] result = new int[smaller.length];
+        int size = 0;
+        int j = 0;
+        for (int position : smaller) {
+            while (j < larger.length && larger[j] < position) {
+                j++;
+            }
+            if (j == larger.length) {
+                break;
+            }
+            if (larger[j] == position) {
+                result[size++] = position;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static boolean containsAll(String name, String[] terms) {
+        for (String term : terms) {
+            if (!name.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long trigram(String value, int start) {
+        return ((long) value.charAt(start) << 32)
+                | ((long) value.charAt(start + 1) << 16)
+                | value.charAt(start + 2);
+    }
+
+    public record Matches(List<Identity> identities, int total) {}
+
+    private static final class PostingList {
+        private int[] positions = new int[4];
+        private int size;
+
+        // Positions are added in ascending order, so a repeat is always the last one added
+        private void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
@@ -52,7 +52,7 @@ public class CoreStubHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CoreStubHandler.class);
 
-    private final Map<String, CredentialIssuer> stateSession = new HashMap<>();
+    private final StateStore stateStore = StateStore.fromConfig();
     private HandlerHelper handlerHelper;
     private Map<String, String> questionsMap = new HashMap<>();
     private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -133,10 +133,16 @@ public class CoreStubHandler {
     public Route serveHomePage =
             (Request request, Response response) -> ViewHelper.render(null, "home.mustache");
 
+    public Route metrics =
+            (Request request, Response response) -> {
+                response.type("text/plain; version=0.0.4");
+                return stateStore.metrics();
+            };
+
     public Route showCredentialIssuer =
             (Request request, Response response) ->
                     ViewHelper.render(
-                            Map.of("cris", CoreStubConfig.credentialIssuers),
+                            Map.of("cris", CoreStubConfig.getCredentialIssuers()),
                             "credential-issuers.mustache");
 
     public Route userSearch =
@@ -145,8 +151,11 @@ public class CoreStubHandler {
 
                 var credentialIssuer = handlerHelper.findCredentialIssuer(credentialIssuerId);
 
-                var results = handlerHelper.findByName(request.queryParams("name"));
-                int size = results.size();
+                var matches =
+                        handlerHelper.findByName(
+                                request.queryParams("name"),
+                                CoreStubConfig.CORE_STUB_MAX_SEARCH_RESULTS);
+                int size = matches.total();
                 if (size > CoreStubConfig.CORE_STUB_MAX_SEARCH_RESULTS) {
                     throw new IllegalStateException("Too many matches: %d".formatted(size));
                 }
@@ -157,7 +166,7 @@ public class CoreStubHandler {
 
                 var identityMapper = new IdentityMapper();
                 var displayIdentities =
-                        results.stream()
+                        matches.identities().stream()
                                 .map(identityMapper::mapToDisplayable)
                                 .sorted(Comparator.comparingInt(DisplayIdentity::rowNumber))
                                 .collect(Collectors.toList());
@@ -197,7 +206,10 @@ public class CoreStubHandler {
                 var authorizationCode =
                         authorizationResponse.toSuccessResponse().getAuthorizationCode();
                 var state = authorizationResponse.toSuccessResponse().getState();
-                var credentialIssuer = stateSession.remove(state.getValue());
+                var credentialIssuer = stateStore.take(state.getValue());
+                if (credentialIssuer == null) {
+                    throw new IllegalStateException("Unknown or expired state " + state);
+                }
                 LOGGER.info(
                         "👈 received callback for state {} from {}",
                         state,
@@ -696,9 +708,8 @@ public class CoreStubHandler {
         return identity;
     }
 
-    private State createNewState(CredentialIssuer credentialIssuer) {
-        var state = new State();
-        stateSession.put(state.getValue(), credentialIssuer);
+    private State createNewState(CredentialIssuer credentialIssuer) throws JOSEException {
+        var state = stateStore.create(credentialIssuer);
         LOGGER.info(
                 "New State {} Created for {} Journey", state.getValue(), credentialIssuer.name());
         return state;
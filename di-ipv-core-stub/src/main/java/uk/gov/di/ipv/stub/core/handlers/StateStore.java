@@ -0,0 +1,192 @@
+package uk.gov.di.ipv.stub.core.handlers;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.oauth2.sdk.id.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.core.config.CoreStubConfig;
+import uk.gov.di.ipv.stub.core.config.credentialissuer.CredentialIssuer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+// The OAuth state for each journey sent to a CRI, mapped to the CRI it was sent to until the
+// callback takes it. States expire after CORE_STUB_STATE_TTL_MINS and at most
+// CORE_STUB_STATE_MAX_ENTRIES are held, dropping the oldest first, so abandoned journeys don't
+// build up. States are held in creation order, which with a single TTL is also the order they
+// expire in, so expiry and eviction only ever look at the oldest. Taking a state removes it.
+//
+// With CORE_STUB_STATE_ENCRYPTION_KEY set, nothing is held: the state is an encrypted JWT naming
+// the CRI and its expiry, so any core stub instance sharing the key can handle the callback. Such a
+// state is not single use.
+class StateStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StateStore.class);
+    private static final String CRI_CLAIM = "cri";
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final byte[] encryptionKey;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+
+    StateStore(Duration ttl, int maxEntries, byte[] encryptionKey, Clock clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.encryptionKey = encryptionKey;
+        this.clock = clock;
+    }
+
+    static StateStore fromConfig() {
+        String encryptionKey = CoreStubConfig.CORE_STUB_STATE_ENCRYPTION_KEY;
+        return new StateStore(
+                Duration.ofMinutes(CoreStubConfig.CORE_STUB_STATE_TTL_MINS),
+                CoreStubConfig.CORE_STUB_STATE_MAX_ENTRIES,
+                encryptionKey == null ? null : Base64.getDecoder().decode(encryptionKey),
+                Clock.systemUTC());
+    }
+
+    State create(CredentialIssuer credentialIssuer) throws JOSEException {
+        Instant expiresAt = clock.instant().plus(ttl);
+        created.increment();
+        if (encryptionKey != null) {
+            return new State(encrypt(credentialIssuer, expiresAt));
+        }
+
+        State state = new State();
+        synchronized (entries) {
+            entries.put(state.getValue(), new Entry(credentialIssuer, expiresAt));
+            evict();
+        }
+        return state;
+    }
+
+    // Null when the state was never created, has already been taken, or has expired
+    CredentialIssuer take(String state) {
+        CredentialIssuer credentialIssuer =
+                encryptionKey != null ? decrypt(state) : takeEntry(state);
+        if (credentialIssuer != null) {
+            consumed.increment();
+        }
+        return credentialIssuer;
+    }
+
+    String metrics() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE core_stub_oauth_state_total counter\n");
+        appendCount(out, "created", created.sum());
+        appendCount(out, "consumed", consumed.sum());
+        appendCount(out, "expired", expired.sum());
+        appendCount(out, "evicted", evicted.sum());
+        appendCount(out, "unknown", unknown.sum());
+        out.append("# TYPE core_stub_oauth_state_entries gauge\n");
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        out.append("core_stub_oauth_state_entries ").append(size).append('\n');
+        return out.toString();
+    }
+
+    private CredentialIssuer takeEntry(String state) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(state);
+        }
+        if (entry == null) {
+            unknown.increment();
+            return null;
+        }
+        if (!clock.instant().isBefore(entry.expiresAt())) {
+            expired.increment();
+            return null;
+        }
+        return entry.credentialIssuer();
+    }
+
+    // Called holding the lock on entries
+    private void evict() {
+        Instant now = clock.instant();
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Entry> next = oldest.next();
+            boolean hasExpired = !now.isBefore(next.getValue().expiresAt());
+            if (!hasExpired && entries.size() <= maxEntries) {
+                return;
+            }
+            oldest.remove();
+            if (hasExpired) {
+                expired.increment();
+            } else {
+                evicted.increment();
+                LOGGER.warn("Evicted state {} as {} states are held", next.getKey(), maxEntries);
+            }
+        }
+    }
+
+    private String encrypt(CredentialIssuer credentialIssuer, Instant expiresAt)
+            throws JOSEException {
+        JWTClaimsSet claims =
+                new JWTClaimsSet.Builder()
+                        .jwtID(UUID.randomUUID().toString())
+                        .claim(CRI_CLAIM, credentialIssuer.id())
+                        .expirationTime(Date.from(expiresAt))
+                        .build();
+        EncryptedJWT jwt =
+                new EncryptedJWT(new JWEHeader(JWEAlgorithm.DIR, EncryptionMethod.A256GCM), claims);
+        jwt.encrypt(new DirectEncrypter(encryptionKey));
+        return jwt.serialize();
+    }
+
+    private CredentialIssuer decrypt(String state) {
+        try {
+            EncryptedJWT jwt = EncryptedJWT.parse(state);
+            jwt.decrypt(new DirectDecrypter(encryptionKey));
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            if (claims.getExpirationTime() == null
+                    || !clock.instant().isBefore(claims.getExpirationTime().toInstant())) {
+                expired.increment();
+                return null;
+            }
+            CredentialIssuer credentialIssuer =
+                    CoreStubConfig.findCredentialIssuer(claims.getStringClaim(CRI_CLAIM));
+            if (credentialIssuer == null) {
+                unknown.increment();
+            }
+            return credentialIssuer;
+        } catch (java.text.ParseException | JOSEException e) {
+            LOGGER.warn("Unable to decrypt state: {}", e.getMessage());
+            unknown.increment();
+            return null;
+        }
+    }
+
+    private static void appendCount(StringBuilder out, String result, long count) {
+        out.append("core_stub_oauth_state_total{result=\"")
+                .append(result)
+                .append("\"} ")
+                .append(count)
+                .append('\n');
+    }
+
+    private record Entry(CredentialIssuer credentialIssuer, Instant expiresAt) {}
+}
@@ -16,9 +16,6 @@ import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.RSAEncrypter;
 import com.nimbusds.jose.crypto.impl.ECDSA;
 import com.nimbusds.jose.jwk.ECKey;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.EncryptedJWT;
 import com.nimbusds.jwt.JWT;
@@ -52,6 +49,7 @@ import uk.gov.di.ipv.stub.core.config.CoreStubConfig;
 import uk.gov.di.ipv.stub.core.config.credentialissuer.CredentialIssuer;
 import uk.gov.di.ipv.stub.core.config.uatuser.EvidenceRequestClaims;
 import uk.gov.di.ipv.stub.core.config.uatuser.Identity;
+import uk.gov.di.ipv.stub.core.config.uatuser.NameIndex;
 
 import java.io.IOException;
 import java.net.URI;
@@ -59,17 +57,14 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static com.nimbusds.jose.JWSAlgorithm.ES256;
 
@@ -87,10 +82,15 @@ public class HandlerHelper {
     private final ECKey ecSigningKey;
     private final ObjectMapper objectMapper;
     private final JWTSigner jwtSigner;
+    private final JwksCache jwksCache;
 
     public HandlerHelper(ECKey ecSigningKey) throws JOSEException {
         this.ecSigningKey = ecSigningKey;
         this.jwtSigner = new JWTSigner(ecSigningKey);
+        this.jwksCache =
+                new JwksCache(
+                        this::fetchJWKs,
+                        Duration.ofSeconds(CoreStubConfig.CORE_STUB_JWKS_CACHE_SECONDS));
         this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
         this.objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd"));
         this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -396,33 +396,24 @@ public class HandlerHelper {
     }
 
     public CredentialIssuer findCredentialIssuer(String credentialIssuerId) {
-        return CoreStubConfig.credentialIssuers.stream()
-                .filter(cri -> credentialIssuerId.equals(cri.id()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("illegal cri"));
-    }
-
-    public List<Identity> findByName(String searchTerm) {
-        if (StringUtils.isNotBlank(searchTerm)) {
-            String[] parts = searchTerm.toLowerCase().split(" ");
-
-            return CoreStubConfig.identities.stream()
-                    .filter(
-                            identity -> {
-                                String name = identity.name().fullName().toLowerCase();
-                                return Arrays.stream(parts).allMatch(term -> name.contains(term));
-                            })
-                    .collect(Collectors.toList());
+        CredentialIssuer credentialIssuer =
+                CoreStubConfig.findCredentialIssuer(credentialIssuerId);
+        if (credentialIssuer == null) {
+            throw new IllegalStateException("illegal cri");
         }
+        return credentialIssuer;
+    }
 
-        return new ArrayList<>();
+    public NameIndex.Matches findByName(String searchTerm, int limit) {
+        return CoreStubConfig.getIdentityNameIndex().search(searchTerm, limit);
     }
 
     public Identity findIdentityByRowNumber(Integer rowNumber) {
-        return CoreStubConfig.identities.stream()
-                .filter(identity -> rowNumber == identity.rowNumber())
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("unmatched rowNumber"));
+        Identity identity = CoreStubConfig.findIdentity(rowNumber);
+        if (identity == null) {
+            throw new IllegalStateException("unmatched rowNumber");
+        }
+        return identity;
     }
 
     public SignedJWT createSignedJWT(Object identity, CredentialIssuer credentialIssuer)
@@ -461,29 +452,29 @@ public class HandlerHelper {
                     new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM)
                             .contentType("JWT");
 
-            RSAKey rsaKey;
+            RSAEncrypter encrypter;
             String encryptionKeyId;
             boolean useKeyRotation = credentialIssuer.useKeyRotation();
             LOGGER.info("useKeyRotation is set to {}", useKeyRotation);
             if (useKeyRotation) {
                 // automated key rotation path
-                List<JWK> keys = JWKSet.parse(getJWKs(credentialIssuer)).getKeys();
-                rsaKey = getLastEncryptionPublicKey(keys);
+                JwksCache.Entry jwks = jwksCache.get(credentialIssuer);
+                encrypter = jwks.encrypter();
 
                 // keyId added to JWE header for future keyID validation in CRI
-                encryptionKeyId = rsaKey.getKeyID();
+                encryptionKeyId = jwks.rsaKey().getKeyID();
                 LOGGER.info("hashed keyId from JWKS endpoint {}", encryptionKeyId);
                 headerBuilder.keyID(encryptionKeyId);
 
             } else {
 
                 String keyValueFromFile = credentialIssuer.publicEncryptionJwkBase64();
-                rsaKey = getEncryptionPublicKey(keyValueFromFile);
+                encrypter = createEncrypter(getEncryptionPublicKey(keyValueFromFile));
             }
 
             JWEObject jweObject = new JWEObject(headerBuilder.build(), new Payload(signedJWT));
 
-            encryptJWEObject(jweObject, rsaKey);
+            encryptJWEObject(jweObject, encrypter);
 
             return EncryptedJWT.parse(jweObject.serialize());
 
@@ -493,16 +484,25 @@ public class HandlerHelper {
         }
     }
 
-    private static void encryptJWEObject(JWEObject jweObject, RSAKey rsaKey) {
+    private static RSAEncrypter createEncrypter(RSAKey rsaKey) {
         try {
-            jweObject.encrypt(new RSAEncrypter(rsaKey));
+            return new RSAEncrypter(rsaKey);
+        } catch (JOSEException e) {
+            LOGGER.error("Error creating JWE encrypter");
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void encryptJWEObject(JWEObject jweObject, RSAEncrypter encrypter) {
+        try {
+            jweObject.encrypt(encrypter);
         } catch (JOSEException e) {
             LOGGER.error("Error during JWE encryption");
             throw new RuntimeException(e);
         }
     }
 
-    public String getJWKs(CredentialIssuer credentialIssuer) {
+    private HTTPResponse fetchJWKs(CredentialIssuer credentialIssuer) {
         HTTPRequest jwksEndpointRequest =
                 new HTTPRequest(HTTPRequest.Method.GET, credentialIssuer.jwksEndpoint());
 
@@ -519,16 +519,7 @@ public class HandlerHelper {
                     credentialIssuer.apiKeyEnvVar(),
                     API_KEY_HEADER);
         }
-        HTTPResponse jwksEndpointHttpResponse = sendHttpRequest(jwksEndpointRequest);
-        return jwksEndpointHttpResponse.getBody();
-    }
-
-    private RSAKey getLastEncryptionPublicKey(List<JWK> keys) {
-        if (keys.get(keys.size() - 1) instanceof RSAKey lastKey
-                && lastKey.getKeyUse() == KeyUse.ENCRYPTION) {
-            return lastKey;
-        }
-        throw new RuntimeException("Last key is not a RSA key");
+        return sendHttpRequest(jwksEndpointRequest);
     }
 
     private RSAKey getEncryptionPublicKey(String key) throws java.text.ParseException {
@@ -0,0 +1,180 @@
+package uk.gov.di.ipv.stub.core.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.core.config.credentialissuer.CredentialIssuer;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Encryption keys from the JWKS endpoints of CRIs that use key rotation, held per CRI with an
+// RSAEncrypter ready for use. A key set is kept for the max-age the CRI sends in Cache-Control, or
+// the default when there is none. Once 80% of that has passed the next request starts a refresh in
+// the background and is served the current key, so only the first request for a CRI waits on the
+// network. Concurrent fetches for a CRI share one request, and a failed refresh keeps the last
+// good key, trying again after RETRY_AFTER.
+class JwksCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwksCache.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Duration MIN_TTL = Duration.ofSeconds(10);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final Function<CredentialIssuer, HTTPResponse> fetcher;
+    private final Duration defaultTtl;
+    private final Clock clock;
+    private final Executor executor;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    JwksCache(Function<CredentialIssuer, HTTPResponse> fetcher, Duration defaultTtl) {
+        this(
+                fetcher,
+                defaultTtl,
+                Clock.systemUTC(),
+                Executors.newCachedThreadPool(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "jwks-refresh");
+                            thread.setDaemon(true);
+                            return thread;
+                        }));
+    }
+
+    JwksCache(
+            Function<CredentialIssuer, HTTPResponse> fetcher,
+            Duration defaultTtl,
+            Clock clock,
+            Executor executor) {
+        this.fetcher = fetcher;
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    Entry get(CredentialIssuer credentialIssuer) {
+        Entry entry = entries.get(credentialIssuer.id());
+        if (entry == null || !entry.jwksEndpoint().equals(credentialIssuer.jwksEndpoint())) {
+            try {
+                return fetch(credentialIssuer).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause
+                        ? cause
+                        : new RuntimeException(e.getCause());
+            }
+        }
+        Instant now = clock.instant();
+        if (!now.isBefore(entry.refreshAt())) {
+            if (now.isAfter(entry.expiresAt())) {
+                LOGGER.warn(
+                        "Using expired JWKS for cri {} while it is refreshed",
+                        credentialIssuer.id());
+            }
+            fetch(credentialIssuer);
+        }
+        return entry;
+    }
+
+    private CompletableFuture<Entry> fetch(CredentialIssuer credentialIssuer) {
+        String id = credentialIssuer.id();
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            return existing;
+        }
+        executor.execute(
+                () -> {
+                    try {
+                        Entry entry = load(credentialIssuer);
+                        entries.put(id, entry);
+                        created.complete(entry);
+                    } catch (Exception e) {
+                        Entry previous = entries.get(id);
+                        if (previous != null) {
+                            LOGGER.error(
+                                    "Failed to refresh JWKS for cri {}, keeping the last key: {}",
+                                    id,
+                                    e.getMessage());
+                            entries.put(id, previous.retryAt(clock.instant().plus(RETRY_AFTER)));
+                        }
+                        created.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(id, created);
+                    }
+                });
+        return created;
+    }
+
+    private Entry load(CredentialIssuer credentialIssuer) throws Exception {
+        HTTPResponse response = fetcher.apply(credentialIssuer);
+        if (!response.indicatesSuccess()) {
+            throw new IllegalStateException(
+                    "JWKS endpoint returned status " + response.getStatusCode());
+        }
+        RSAKey rsaKey = lastEncryptionKey(JWKSet.parse(response.getBody()).getKeys());
+        Duration ttl = ttl(response.getHeaderValue("Cache-Control"));
+        Instant now = clock.instant();
+        LOGGER.info(
+                "Cached JWKS key {} for cri {} for {} seconds",
+                rsaKey.getKeyID(),
+                credentialIssuer.id(),
+                ttl.toSeconds());
+        return new Entry(
+                credentialIssuer.jwksEndpoint(),
+                rsaKey,
+                new RSAEncrypter(rsaKey),
+                now.plus(ttl.multipliedBy(4).dividedBy(5)),
+                now.plus(ttl));
+    }
+
+    private Duration ttl(String cacheControl) {
+        if (cacheControl == null) {
+            return defaultTtl;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        if (!matcher.find()) {
+            return cacheControl.contains("no-cache") || cacheControl.contains("no-store")
+                    ? MIN_TTL
+                    : defaultTtl;
+        }
+        Duration maxAge = Duration.ofSeconds(Long.parseLong(matcher.group(1)));
+        return maxAge.compareTo(MIN_TTL) < 0 ? MIN_TTL : maxAge;
+    }
+
+    private static RSAKey lastEncryptionKey(List<JWK> keys) {
+        if (!keys.isEmpty()
+                && keys.get(keys.size() - 1) instanceof RSAKey lastKey
+                && lastKey.getKeyUse() == KeyUse.ENCRYPTION) {
+            return lastKey;
+        }
+        throw new RuntimeException("Last key is not a RSA key");
+    }
+
+    record Entry(
+            URI jwksEndpoint,
+            RSAKey rsaKey,
+            RSAEncrypter encrypter,
+            Instant refreshAt,
+            Instant expiresAt) {
+        private Entry retryAt(Instant retryAt) {
+            return new Entry(jwksEndpoint, rsaKey, encrypter, retryAt, expiresAt);
+        }
+    }
+}
@@ -6,7 +6,8 @@ import spark.template.mustache.MustacheTemplateEngine;
 import java.util.Map;
 
 public class ViewHelper {
-    private static final MustacheTemplateEngine TEMPLATE_ENGINE = new MustacheTemplateEngine();
+    private static final MustacheTemplateEngine TEMPLATE_ENGINE =
+            new MustacheTemplateEngine(StaticAssets.PUBLIC.mustacheFactory("templates"));
 
     public static String render(Map<String, Object> model, String templatePath) {
         return TEMPLATE_ENGINE.render(new ModelAndView(model, templatePath));
@@ -0,0 +1,58 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import io.javalin.http.Context;
+import uk.gov.di.ipv.stub.cred.utils.StubSsmClient;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.CLIENT_CONFIG;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PRIVATE_KEY_JWK;
+
+// Config is read from the environment, so each benchmark sets up the same variables the unit tests
+// use before it touches any stub class
+final class BenchmarkEnvironment {
+    static final String CLIENT_ID = "clientIdValid";
+    static final String PUBLIC_CLIENT_ID = "noAuthenticationClient";
+    static final String CLIENT_AUDIENCE = "https://test-server.example.com/token";
+    static final String REDIRECT_URI = "https://valid.example.com";
+
+    private BenchmarkEnvironment() {}
+
+    static EnvironmentVariables environmentVariables() {
+        return new EnvironmentVariables(
+                "ENVIRONMENT",
+                "TEST",
+                "CLIENT_AUDIENCE",
+                CLIENT_AUDIENCE,
+                "VC_ISSUER",
+                "https://issuer.example.com",
+                "VC_SIGNING_KEY",
+                EC_PRIVATE_KEY_1,
+                "PRIVATE_ENCRYPTION_KEY_JWK",
+                RSA_PRIVATE_KEY_JWK);
+    }
+
+    static EnvironmentVariables setUp(EnvironmentVariables environmentVariables)
+            throws Exception {
+        environmentVariables.setup();
+        StubSsmClient.setClientConfigParams(CLIENT_CONFIG);
+        return environmentVariables;
+    }
+
+    // For starting the stub in process alongside anything else on the machine
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Stub only, so that millions of invocations are not recorded for verification
+    static Context mockContext() {
+        return mock(Context.class, withSettings().stubOnly());
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.javalin.http.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.auth.ClientJwtVerifier;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_AUDIENCE;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_ID;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.REDIRECT_URI;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+
+@State(Scope.Benchmark)
+public class ClientJwtVerifierBenchmark {
+    private EnvironmentVariables environmentVariables;
+    private ClientJwtVerifier clientJwtVerifier;
+    private Context context;
+
+    @Setup
+    public void setUp() throws Exception {
+        environmentVariables =
+                BenchmarkEnvironment.setUp(BenchmarkEnvironment.environmentVariables());
+        clientJwtVerifier = new ClientJwtVerifier();
+
+        SignedJWT clientAssertion =
+                new SignedJWT(
+                        new JWSHeader(JWSAlgorithm.ES256),
+                        new JWTClaimsSet.Builder()
+                                .issuer(CLIENT_ID)
+                                .subject(CLIENT_ID)
+                                .audience(CLIENT_AUDIENCE)
+                                .expirationTime(
+                                        Date.from(Instant.now().plus(1, ChronoUnit.DAYS)))
+                                .build());
+        clientAssertion.sign(
+                new ECDSASigner(
+                        (ECPrivateKey)
+                                KeyFactory.getInstance("EC")
+                                        .generatePrivate(
+                                                new PKCS8EncodedKeySpec(
+                                                        Base64.getDecoder()
+                                                                .decode(EC_PRIVATE_KEY_1)))));
+        Map<String, List<String>> formParams =
+                Map.of(
+                        "client_assertion",
+                        List.of(clientAssertion.serialize()),
+                        "client_assertion_type",
+                        List.of("urn:ietf:params:oauth:client-assertion-type:jwt-bearer"),
+                        "code",
+                        List.of("benchmark-code"),
+                        "grant_type",
+                        List.of("authorization_code"),
+                        "redirect_uri",
+                        List.of(REDIRECT_URI));
+
+        context = BenchmarkEnvironment.mockContext();
+        when(context.formParamMap()).thenReturn(formParams);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public void authenticateClient() throws Exception {
+        clientJwtVerifier.authenticateClient(context);
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.CredentialIssuer;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// A burst of concurrent POST /api/authorize -> POST /token -> POST /credentials/issue journeys
+// against the stub started in process, with and without VIRTUAL_THREADS_ENABLED. Each authorize
+// posts a CI mitigation to a CIMIT stub that answers after a fixed delay, blocking its request
+// thread as it does in use. With platform threads the burst queues behind Jetty's bounded pool,
+// with virtual threads it is bound by CPU. The stub has no way to stop, so each param relies on
+// running in its own fork.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConcurrentJourneyBenchmark {
+    private static final int CONCURRENT_JOURNEYS = 500;
+    private static final long CIMIT_STUB_DELAY_MILLIS = 50;
+
+    @Param({"false", "true"})
+    public boolean useVirtualThreads;
+
+    private HttpServer cimitStub;
+    private EnvironmentVariables environmentVariables;
+    private JourneyLoadDriver driver;
+
+    @Setup
+    public void setUp() throws Exception {
+        cimitStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        cimitStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        cimitStub.createContext(
+                "/",
+                exchange -> {
+                    try {
+                        Thread.sleep(CIMIT_STUB_DELAY_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+        cimitStub.start();
+
+        int port = BenchmarkEnvironment.freePort();
+        environmentVariables =
+                BenchmarkEnvironment.setUp(
+                        BenchmarkEnvironment.environmentVariables()
+                                .set("CREDENTIAL_ISSUER_PORT", String.valueOf(port))
+                                .set("VIRTUAL_THREADS_ENABLED", String.valueOf(useVirtualThreads)));
+        new CredentialIssuer();
+
+        driver =
+                new JourneyLoadDriver(
+                        URI.create("http://localhost:" + port),
+                        CONCURRENT_JOURNEYS,
+                        URI.create("http://localhost:" + cimitStub.getAddress().getPort()));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        cimitStub.stop(0);
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public void concurrentJourneys() {
+        long completedBefore = driver.completed();
+        driver.runConcurrently(CONCURRENT_JOURNEYS);
+        long failed = CONCURRENT_JOURNEYS - (driver.completed() - completedBefore);
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " journeys failed");
+        }
+    }
+}
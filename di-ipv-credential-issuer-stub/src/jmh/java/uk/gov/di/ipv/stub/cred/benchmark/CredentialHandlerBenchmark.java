@@ -0,0 +1,63 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+import uk.gov.di.ipv.stub.cred.handlers.CredentialHandler;
+import uk.gov.di.ipv.stub.cred.service.CredentialService;
+import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StoredCredential;
+import uk.gov.di.ipv.stub.cred.service.TokenService;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.DCMAW_VC;
+
+// Each invocation persists a fresh access token, as the token step would, then redeems it
+@State(Scope.Thread)
+public class CredentialHandlerBenchmark {
+    private static final String RESOURCE_ID = "benchmark-resource-id";
+
+    private EnvironmentVariables environmentVariables;
+    private TokenService tokenService;
+    private CredentialHandler credentialHandler;
+    private Context context;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        environmentVariables =
+                BenchmarkEnvironment.setUp(BenchmarkEnvironment.environmentVariables());
+        tokenService = new TokenService();
+        CredentialService credentialService = new CredentialService();
+        credentialService.persist(
+                StoredCredential.render(CriType.EVIDENCE_CRI_TYPE, SignedJWT.parse(DCMAW_VC)),
+                RESOURCE_ID);
+        credentialHandler =
+                new CredentialHandler(
+                        credentialService, tokenService, new RequestedErrorResponseService());
+
+        context = BenchmarkEnvironment.mockContext();
+        when(context.header(Header.AUTHORIZATION)).thenAnswer(i -> authorizationHeader);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public void getResource() throws Exception {
+        BearerAccessToken accessToken = new BearerAccessToken();
+        tokenService.persist(accessToken, RESOURCE_ID);
+        authorizationHeader = accessToken.toAuthorizationHeader();
+        credentialHandler.getResource(context);
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.auth.ClientVerifierRegistry;
+import uk.gov.di.ipv.stub.cred.service.JarCache;
+import uk.gov.di.ipv.stub.cred.utils.ES256SignatureVerifier;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_ID;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.REDIRECT_URI;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PUBLIC_KEY_JWK;
+
+// The request JAR steps of AuthorizeHandler.getJwtClaimsSet: decrypt, verify the client signature
+// and read the claims. decryptAndVerify misses the JAR cache every time, as the first GET
+// /authorize of a journey does. cachedLookup is every later step of the same journey.
+@State(Scope.Benchmark)
+public class JarBenchmark {
+    private final ES256SignatureVerifier es256SignatureVerifier = new ES256SignatureVerifier();
+
+    private EnvironmentVariables environmentVariables;
+    private String request;
+    private JarCache warmJarCache;
+
+    @Setup
+    public void setUp() throws Exception {
+        environmentVariables =
+                BenchmarkEnvironment.setUp(BenchmarkEnvironment.environmentVariables());
+
+        SignedJWT signedJwt =
+                new SignedJWT(
+                        new JWSHeader(JWSAlgorithm.ES256),
+                        new JWTClaimsSet.Builder()
+                                .issuer(CLIENT_ID)
+                                .subject("urn:uuid:benchmark-user")
+                                .claim("client_id", CLIENT_ID)
+                                .claim("redirect_uri", REDIRECT_URI)
+                                .claim("shared_claims", Map.of("name", "Kenneth"))
+                                .build());
+        signedJwt.sign(
+                new ECDSASigner(
+                        (ECPrivateKey)
+                                KeyFactory.getInstance("EC")
+                                        .generatePrivate(
+                                                new PKCS8EncodedKeySpec(
+                                                        Base64.getDecoder()
+                                                                .decode(EC_PRIVATE_KEY_1)))));
+        JWEObject jweObject =
+                new JWEObject(
+                        new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM)
+                                .contentType("JWT")
+                                .build(),
+                        new Payload(signedJwt));
+        jweObject.encrypt(new RSAEncrypter(RSAKey.parse(RSA_PUBLIC_KEY_JWK)));
+        request = jweObject.serialize();
+
+        warmJarCache = new JarCache(1);
+        warmJarCache.get(request);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public JWTClaimsSet decryptAndVerify() throws Exception {
+        return verify(new JarCache(1));
+    }
+
+    @Benchmark
+    public JWTClaimsSet cachedLookup() throws Exception {
+        return verify(warmJarCache);
+    }
+
+    private JWTClaimsSet verify(JarCache jarCache) throws Exception {
+        JarCache.DecryptedJar decryptedJar = jarCache.get(request);
+        if (!decryptedJar.isSignatureValid(
+                ClientVerifierRegistry.getJarSigningKey(CLIENT_ID), es256SignatureVerifier)) {
+            throw new IllegalStateException("Benchmark JAR signature is not valid");
+        }
+        return decryptedJar.getClaimsSet();
+    }
+}
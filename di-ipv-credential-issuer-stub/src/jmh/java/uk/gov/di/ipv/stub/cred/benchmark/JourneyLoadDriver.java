@@ -0,0 +1,399 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.AuthorizationRequest;
+import com.nimbusds.oauth2.sdk.AuthorizationSuccessResponse;
+import com.nimbusds.oauth2.sdk.GrantType;
+import com.nimbusds.oauth2.sdk.ResponseType;
+import com.nimbusds.oauth2.sdk.auth.JWTAuthenticationClaimsSet;
+import com.nimbusds.oauth2.sdk.auth.PrivateKeyJWT;
+import com.nimbusds.oauth2.sdk.id.Audience;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.oauth2.sdk.util.URLUtils;
+import uk.gov.di.ipv.stub.cred.CredentialIssuer;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_AUDIENCE;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_ID;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.REDIRECT_URI;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PUBLIC_KEY_JWK;
+
+// Starts the stub in process, with client config served by StubSsmClient, and drives
+// POST /api/authorize -> POST /token -> POST /credentials/issue journeys at a fixed arrival rate.
+// JARs are signed and encrypted and the token request authenticates with private_key_jwt, as core
+// does. Arrivals are open loop, so a slow stub shows up as growing latency rather than a lower
+// request rate. Run with ./gradlew loadDriver -PloadDriverArgs="--rate=100 --duration=30".
+public class JourneyLoadDriver {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String CREDENTIAL_SUBJECT =
+            "{\"name\":[{\"nameParts\":[{\"type\":\"GivenName\",\"value\":\"Kenneth\"}]}],"
+                    + "\"birthDate\":[{\"value\":\"1965-07-08\"}]}";
+
+    private final URI baseUri;
+    private final URI cimitStubUri;
+    private final HttpClient httpClient;
+    private final ECDSASigner signer;
+    private final RSAEncrypter encrypter;
+    private final Map<Step, LatencyRecorder> latencies = new HashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // The credential endpoint answers 201, or 202 for F2F, as StoredCredential renders it
+    private enum Step {
+        AUTHORIZE(200),
+        TOKEN(200),
+        CREDENTIAL(201, 202),
+        JOURNEY;
+
+        private final Set<Integer> expectedStatuses;
+
+        Step(Integer... expectedStatuses) {
+            this.expectedStatuses = Set.of(expectedStatuses);
+        }
+    }
+
+    JourneyLoadDriver(URI baseUri, int expectedJourneys) throws Exception {
+        this(baseUri, expectedJourneys, null);
+    }
+
+    // With a CIMIT stub, each authorize posts a CI mitigation to it before it returns
+    JourneyLoadDriver(URI baseUri, int expectedJourneys, URI cimitStubUri) throws Exception {
+        this.baseUri = baseUri;
+        this.cimitStubUri = cimitStubUri;
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.signer =
+                new ECDSASigner(
+                        (ECPrivateKey)
+                                KeyFactory.getInstance("EC")
+                                        .generatePrivate(
+                                                new PKCS8EncodedKeySpec(
+                                                        Base64.getDecoder()
+                                                                .decode(EC_PRIVATE_KEY_1))));
+        this.encrypter = new RSAEncrypter(RSAKey.parse(RSA_PUBLIC_KEY_JWK));
+        for (Step step : Step.values()) {
+            latencies.put(step, new LatencyRecorder(expectedJourneys));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "50"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+        String port = options.getOrDefault("port", "18084");
+        String virtualThreads = options.getOrDefault("virtual-threads", "false");
+        BenchmarkEnvironment.setUp(
+                BenchmarkEnvironment.environmentVariables()
+                        .set("CREDENTIAL_ISSUER_PORT", port)
+                        .set("VIRTUAL_THREADS_ENABLED", virtualThreads));
+        new CredentialIssuer();
+
+        JourneyLoadDriver driver =
+                new JourneyLoadDriver(
+                        URI.create("http://localhost:" + port), rate * durationSeconds);
+        long elapsedNanos = driver.run(rate, durationSeconds, maxInFlight);
+        driver.report(System.out, rate, elapsedNanos);
+        System.exit(0);
+    }
+
+    long run(int rate, int durationSeconds, int maxInFlight) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        int journeys = rate * durationSeconds;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < journeys; i++) {
+                long delay = start + i * intervalNanos - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped.increment();
+                    continue;
+                }
+                executor.execute(
+                        () -> {
+                            try {
+                                runJourney();
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Starts all the journeys at once and waits for them to finish
+    void runConcurrently(int journeys) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < journeys; i++) {
+                executor.execute(this::runJourney);
+            }
+        }
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    private void runJourney() {
+        Step step = Step.AUTHORIZE;
+        try {
+            String request = buildJar();
+            long journeyStart = System.nanoTime();
+
+            long stepStart = System.nanoTime();
+            HttpResponse<String> authorizeResponse = post(authorizeRequest(request));
+            latencies.get(step).record(System.nanoTime() - stepStart);
+            if (!expectStatus(step, authorizeResponse)) {
+                return;
+            }
+            String redirectUri =
+                    OBJECT_MAPPER.readTree(authorizeResponse.body()).get("redirectUri").asText();
+            String code =
+                    AuthorizationSuccessResponse.parse(URI.create(redirectUri))
+                            .getAuthorizationCode()
+                            .getValue();
+
+            step = Step.TOKEN;
+            HttpRequest tokenRequest = tokenRequest(code);
+            stepStart = System.nanoTime();
+            HttpResponse<String> tokenResponse = post(tokenRequest);
+            latencies.get(step).record(System.nanoTime() - stepStart);
+            if (!expectStatus(step, tokenResponse)) {
+                return;
+            }
+            String accessToken =
+                    OBJECT_MAPPER.readTree(tokenResponse.body()).get("access_token").asText();
+
+            step = Step.CREDENTIAL;
+            stepStart = System.nanoTime();
+            HttpResponse<String> credentialResponse = post(credentialRequest(accessToken));
+            latencies.get(step).record(System.nanoTime() - stepStart);
+            if (!expectStatus(step, credentialResponse)) {
+                return;
+            }
+
+            latencies.get(Step.JOURNEY).record(System.nanoTime() - journeyStart);
+            completed.increment();
+        } catch (Exception e) {
+            recordError(step, e.getClass().getSimpleName());
+        }
+    }
+
+    // Claims as built by HandlerHelper.createAuthorizationJAR in the core stub
+    private String buildJar() throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claimsSet =
+                new JWTClaimsSet.Builder(
+                                new AuthorizationRequest.Builder(
+                                                ResponseType.CODE, new ClientID(CLIENT_ID))
+                                        .redirectionURI(URI.create(REDIRECT_URI))
+                                        .state(new State())
+                                        .build()
+                                        .toJWTClaimsSet())
+                        .audience(CLIENT_AUDIENCE)
+                        .issuer(CLIENT_ID)
+                        .issueTime(Date.from(now))
+                        .notBeforeTime(Date.from(now))
+                        .expirationTime(Date.from(now.plus(15, ChronoUnit.MINUTES)))
+                        .subject("urn:uuid:" + UUID.randomUUID())
+                        .claim("govuk_signin_journey_id", UUID.randomUUID().toString())
+                        .claim("shared_claims", Map.of("name", "Kenneth"))
+                        .build();
+        SignedJWT signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claimsSet);
+        signedJwt.sign(signer);
+
+        JWEObject jweObject =
+                new JWEObject(
+                        new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM)
+                                .contentType("JWT")
+                                .build(),
+                        new Payload(signedJwt));
+        jweObject.encrypt(encrypter);
+        return jweObject.serialize();
+    }
+
+    private HttpRequest authorizeRequest(String request) throws Exception {
+        Map<String, Object> authRequest = new HashMap<>();
+        authRequest.put("clientId", CLIENT_ID);
+        authRequest.put("request", request);
+        authRequest.put("credentialSubjectJson", CREDENTIAL_SUBJECT);
+        authRequest.put("evidenceJson", "{}");
+        if (cimitStubUri != null) {
+            authRequest.put(
+                    "mitigations",
+                    Map.of(
+                            "mitigatedCi",
+                            List.of("XX"),
+                            "cimitStubUrl",
+                            cimitStubUri.toString(),
+                            "cimitStubApiKey",
+                            "benchmark"));
+        }
+        String body = OBJECT_MAPPER.writeValueAsString(authRequest);
+        return HttpRequest.newBuilder(baseUri.resolve("/api/authorize"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest tokenRequest(String code) throws JOSEException {
+        SignedJWT clientAssertion =
+                new SignedJWT(
+                        new JWSHeader(JWSAlgorithm.ES256),
+                        new JWTAuthenticationClaimsSet(
+                                        new ClientID(CLIENT_ID), new Audience(CLIENT_AUDIENCE))
+                                .toJWTClaimsSet());
+        clientAssertion.sign(signer);
+
+        Map<String, List<String>> params = new HashMap<>();
+        params.put("grant_type", List.of(GrantType.AUTHORIZATION_CODE.getValue()));
+        params.put("code", List.of(code));
+        params.put("redirect_uri", List.of(REDIRECT_URI));
+        params.putAll(new PrivateKeyJWT(clientAssertion).toParameters());
+        return HttpRequest.newBuilder(baseUri.resolve("/token"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(URLUtils.serializeParameters(params)))
+                .build();
+    }
+
+    private HttpRequest credentialRequest(String accessToken) {
+        return HttpRequest.newBuilder(baseUri.resolve("/credentials/issue"))
+                .header("Authorization", "Bearer " + accessToken)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private HttpResponse<String> post(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private boolean expectStatus(Step step, HttpResponse<String> response) {
+        if (step.expectedStatuses.contains(response.statusCode())) {
+            return true;
+        }
+        recordError(step, String.valueOf(response.statusCode()));
+        return false;
+    }
+
+    private void recordError(Step step, String reason) {
+        errors.computeIfAbsent(step.name().toLowerCase() + " " + reason, key -> new LongAdder())
+                .increment();
+    }
+
+    void report(PrintStream out, int rate, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        out.printf(
+                "Target rate %d/s over %.1fs: %d journeys completed (%.1f/s), %d dropped%n",
+                rate,
+                elapsedSeconds,
+                completed.sum(),
+                completed.sum() / elapsedSeconds,
+                dropped.sum());
+        out.printf(
+                "%-12s %8s %10s %10s %10s %10s%n",
+                "step", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Step step : Step.values()) {
+            LatencyRecorder recorder = latencies.get(step);
+            long[] sorted = recorder.sorted();
+            out.printf(
+                    "%-12s %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    step.name().toLowerCase(),
+                    sorted.length,
+                    percentileMillis(sorted, 0.5),
+                    percentileMillis(sorted, 0.95),
+                    percentileMillis(sorted, 0.99),
+                    percentileMillis(sorted, 1));
+        }
+        if (errors.isEmpty()) {
+            out.println("No errors");
+        } else {
+            out.println("Errors:");
+            errors.forEach((reason, count) -> out.printf("  %-30s %d%n", reason, count.sum()));
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        return options;
+    }
+
+    // Samples go into a preallocated array, so recording does not contend or allocate
+    private static final class LatencyRecorder {
+        private final long[] samples;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        private void record(long nanos) {
+            int index = count.getAndIncrement();
+            if (index < samples.length) {
+                samples[index] = nanos;
+            }
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(samples, Math.min(count.get(), samples.length));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.stub.cred.CredentialIssuer;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The stub has no way to stop and reads its port once, so it is only started by this one test
+class JourneyLoadDriverTest {
+    private HttpServer cimitStub;
+    private EnvironmentVariables environmentVariables;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cimitStub.stop(0);
+        environmentVariables.teardown();
+    }
+
+    @Test
+    void shouldCompleteAJourneyAgainstTheInProcessStub() throws Exception {
+        AtomicInteger mitigationPosts = new AtomicInteger();
+        cimitStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        cimitStub.createContext(
+                "/",
+                exchange -> {
+                    mitigationPosts.incrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+        cimitStub.start();
+        int port = BenchmarkEnvironment.freePort();
+        environmentVariables =
+                BenchmarkEnvironment.setUp(
+                        BenchmarkEnvironment.environmentVariables()
+                                .set("CREDENTIAL_ISSUER_PORT", String.valueOf(port)));
+        new CredentialIssuer();
+        JourneyLoadDriver driver =
+                new JourneyLoadDriver(
+                        URI.create("http://localhost:" + port),
+                        1,
+                        URI.create("http://localhost:" + cimitStub.getAddress().getPort()));
+
+        driver.runConcurrently(1);
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        driver.report(new PrintStream(report, true, StandardCharsets.UTF_8), 1, 1);
+        assertEquals(1, driver.completed(), report.toString(StandardCharsets.UTF_8));
+        assertEquals(1, mitigationPosts.get());
+    }
+}
@@ -0,0 +1,69 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.nimbusds.oauth2.sdk.AuthorizationCode;
+import com.nimbusds.oauth2.sdk.GrantType;
+import io.javalin.http.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.auth.ClientJwtVerifier;
+import uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants;
+import uk.gov.di.ipv.stub.cred.handlers.TokenHandler;
+import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
+import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.TokenService;
+import uk.gov.di.ipv.stub.cred.validation.Validator;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.PUBLIC_CLIENT_ID;
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.REDIRECT_URI;
+
+// Each invocation persists a fresh auth code, as the authorize step would, then redeems it as a
+// public client. Client assertion cost is covered by ClientJwtVerifierBenchmark.
+@State(Scope.Thread)
+public class TokenHandlerBenchmark {
+    private static final String RESOURCE_ID = "benchmark-resource-id";
+
+    private EnvironmentVariables environmentVariables;
+    private AuthCodeService authCodeService;
+    private TokenHandler tokenHandler;
+    private Context context;
+    private String authCode;
+
+    @Setup
+    public void setUp() throws Exception {
+        environmentVariables =
+                BenchmarkEnvironment.setUp(BenchmarkEnvironment.environmentVariables());
+        authCodeService = new AuthCodeService();
+        tokenHandler =
+                new TokenHandler(
+                        authCodeService,
+                        new TokenService(),
+                        new Validator(authCodeService),
+                        new ClientJwtVerifier(),
+                        new RequestedErrorResponseService());
+
+        context = BenchmarkEnvironment.mockContext();
+        when(context.formParam(RequestParamConstants.AUTH_CODE)).thenAnswer(i -> authCode);
+        when(context.formParam(RequestParamConstants.CLIENT_ID)).thenReturn(PUBLIC_CLIENT_ID);
+        when(context.formParam(RequestParamConstants.GRANT_TYPE))
+                .thenReturn(GrantType.AUTHORIZATION_CODE.getValue());
+        when(context.formParam(RequestParamConstants.REDIRECT_URI)).thenReturn(REDIRECT_URI);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public void issueAccessToken() {
+        AuthorizationCode authorizationCode = new AuthorizationCode();
+        authCodeService.persist(authorizationCode, RESOURCE_ID, REDIRECT_URI);
+        authCode = authorizationCode.getValue();
+        tokenHandler.issueAccessToken(context);
+    }
+}
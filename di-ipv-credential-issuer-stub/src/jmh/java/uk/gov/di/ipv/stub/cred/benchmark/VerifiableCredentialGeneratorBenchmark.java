@@ -0,0 +1,86 @@
+package uk.gov.di.ipv.stub.cred.benchmark;
+
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import uk.gov.di.ipv.stub.cred.domain.Credential;
+import uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialGenerator;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.di.ipv.stub.cred.benchmark.BenchmarkEnvironment.CLIENT_ID;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PRIVATE_KEY_JWK;
+
+@State(Scope.Benchmark)
+public class VerifiableCredentialGeneratorBenchmark {
+    @Param({"EC", "RSA"})
+    public String signingAlgorithm;
+
+    private EnvironmentVariables environmentVariables;
+    private VerifiableCredentialGenerator verifiableCredentialGenerator;
+    private Credential credential;
+
+    @Setup
+    public void setUp() throws Exception {
+        String signingKey =
+                "RSA".equals(signingAlgorithm)
+                        ? Base64.getEncoder()
+                                .encodeToString(
+                                        RSAKey.parse(RSA_PRIVATE_KEY_JWK)
+                                                .toPrivateKey()
+                                                .getEncoded())
+                        : EC_PRIVATE_KEY_1;
+        environmentVariables =
+                BenchmarkEnvironment.setUp(
+                        BenchmarkEnvironment.environmentVariables()
+                                .set("VC_SIGNING_ALGORITHM", signingAlgorithm)
+                                .set("VC_SIGNING_KEY", signingKey));
+        verifiableCredentialGenerator = new VerifiableCredentialGenerator();
+        credential =
+                new Credential(
+                        Map.of(
+                                "name",
+                                List.of(
+                                        Map.of(
+                                                "nameParts",
+                                                List.of(
+                                                        Map.of(
+                                                                "type",
+                                                                "GivenName",
+                                                                "value",
+                                                                "Kenneth")))),
+                                "birthDate",
+                                List.of(Map.of("value", "1965-07-08"))),
+                        Map.of(
+                                "type",
+                                "IdentityCheck",
+                                "txn",
+                                "benchmark-txn",
+                                "strengthScore",
+                                4,
+                                "validityScore",
+                                2),
+                        "urn:uuid:benchmark-user",
+                        CLIENT_ID,
+                        null);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environmentVariables.teardown();
+    }
+
+    @Benchmark
+    public SignedJWT generate() throws Exception {
+        return verifiableCredentialGenerator.generate(credential);
+    }
+}
@@ -2,45 +2,56 @@ package uk.gov.di.ipv.stub.cred;
 
 import io.javalin.Javalin;
 import io.javalin.config.RoutesConfig;
+import io.javalin.http.Handler;
 import io.javalin.rendering.template.JavalinMustache;
 import uk.gov.di.ipv.stub.cred.auth.ClientJwtVerifier;
 import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 import uk.gov.di.ipv.stub.cred.config.CriType;
+import uk.gov.di.ipv.stub.cred.config.KeyRegistry;
 import uk.gov.di.ipv.stub.cred.handlers.AuthorizeHandler;
 import uk.gov.di.ipv.stub.cred.handlers.CredentialHandler;
-import uk.gov.di.ipv.stub.cred.handlers.DocAppCredentialHandler;
-import uk.gov.di.ipv.stub.cred.handlers.F2FHandler;
+import uk.gov.di.ipv.stub.cred.handlers.CriStubDataHandler;
 import uk.gov.di.ipv.stub.cred.handlers.GenerateCredentialHandler;
 import uk.gov.di.ipv.stub.cred.handlers.HealthCheckHandler;
 import uk.gov.di.ipv.stub.cred.handlers.JwksHandler;
 import uk.gov.di.ipv.stub.cred.handlers.TokenHandler;
 import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
 import uk.gov.di.ipv.stub.cred.service.CredentialService;
+import uk.gov.di.ipv.stub.cred.service.CriStubDataService;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
 import uk.gov.di.ipv.stub.cred.service.TokenService;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection.Endpoint;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.cred.utils.StaticAssets;
 import uk.gov.di.ipv.stub.cred.validation.Validator;
 import uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialGenerator;
 
 import java.net.http.HttpClient;
 
-import static uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig.getCriType;
+import static uk.gov.di.ipv.stub.cred.utils.FaultInjection.inject;
 
 public class CredentialIssuer {
     private static final String CREDENTIALS_ENDPOINT = "/credentials/issue";
     private static final String AUTHORIZE_ENDPOINT = "/authorize";
     private static final String TOKEN_ENDPOINT = "/token";
     private static final String API_AUTHORIZE_ENDPOINT = "/api/authorize";
+    private static final String API_AUTHORIZE_BULK_ENDPOINT = "/api/authorize/bulk";
+    private static final String CRI_STUB_DATA_ENDPOINT = "/stub-data/cri";
+    private static final String CRI_STUB_EVIDENCE_PAYLOADS_ENDPOINT = "/stub-data/evidence";
 
     private final AuthorizeHandler authorizeHandler;
     private final TokenHandler tokenHandler;
     private final CredentialHandler credentialHandler;
-    private final DocAppCredentialHandler docAppCredentialHandler;
     private final JwksHandler jwksHandler;
-    private final F2FHandler f2fHandler;
     private final HealthCheckHandler healthCheckHandler;
     private final GenerateCredentialHandler generateCredentialHandler;
+    private final CriStubDataHandler criStubDataHandler;
 
     public CredentialIssuer() {
+        KeyRegistry.preload();
+
         AuthCodeService authCodeService = new AuthCodeService();
         TokenService tokenService = new TokenService();
         Validator validator = new Validator(authCodeService);
@@ -67,21 +78,22 @@ public class CredentialIssuer {
         credentialHandler =
                 new CredentialHandler(
                         credentialService, tokenService, requestedErrorResponseService);
-        docAppCredentialHandler =
-                new DocAppCredentialHandler(
-                        credentialService, tokenService, requestedErrorResponseService);
         jwksHandler = new JwksHandler();
-        f2fHandler = new F2FHandler(credentialService, tokenService, requestedErrorResponseService);
         healthCheckHandler = new HealthCheckHandler();
         generateCredentialHandler = new GenerateCredentialHandler(vcGenerator);
+        criStubDataHandler = new CriStubDataHandler(new CriStubDataService());
+        StaticAssets staticAssets = StaticAssets.load("/public");
 
         var app =
                 Javalin.create(
                         config -> {
                             config.startup.showJavalinBanner = false;
-                            config.staticFiles.add("/public");
-                            config.fileRenderer(new JavalinMustache());
+                            config.concurrency.useVirtualThreads =
+                                    CredentialIssuerConfig.isVirtualThreadsEnabled();
+                            config.fileRenderer(
+                                    new JavalinMustache(staticAssets.mustacheFactory("./")));
 
+                            staticAssets.addRoutes(config.routes);
                             initRoutes(config.routes);
                             initErrorMapping(config.routes);
                         });
@@ -90,23 +102,90 @@ public class CredentialIssuer {
     }
 
     private void initRoutes(RoutesConfig routesConfig) {
-        routesConfig.get("/", healthCheckHandler::healthy);
-        routesConfig.get(AUTHORIZE_ENDPOINT, authorizeHandler::doAuthorize);
-        routesConfig.post(AUTHORIZE_ENDPOINT, authorizeHandler::formAuthorize);
-        routesConfig.post(API_AUTHORIZE_ENDPOINT, authorizeHandler::apiAuthorize);
-        routesConfig.post(TOKEN_ENDPOINT, tokenHandler::issueAccessToken);
-        if (getCriType().equals(CriType.DOC_CHECK_APP_CRI_TYPE)) {
-            routesConfig.post(CREDENTIALS_ENDPOINT, docAppCredentialHandler::getResource);
-        } else if (getCriType().equals(CriType.F2F_CRI_TYPE)) {
-            routesConfig.post(CREDENTIALS_ENDPOINT, f2fHandler::getResource);
-        } else {
-            routesConfig.post(CREDENTIALS_ENDPOINT, credentialHandler::getResource);
+        get(routesConfig, null, "/", healthCheckHandler::healthy);
+        initCriRoutes(routesConfig, null);
+        if (CredentialIssuerConfig.isMultiCriEnabled()) {
+            CredentialIssuerConfig.getMultiCriTypes()
+                    .forEach(criType -> initCriRoutes(routesConfig, criType));
         }
-        routesConfig.post(
+        routesConfig.get(RequestMetrics.METRICS_ENDPOINT, RequestMetrics::getMetrics);
+        routesConfig.get(FaultInjection.ADMIN_ENDPOINT, FaultInjection::getProfiles);
+        routesConfig.put(FaultInjection.ADMIN_ENDPOINT, FaultInjection::setProfiles);
+        routesConfig.delete(FaultInjection.ADMIN_ENDPOINT, FaultInjection::clearProfiles);
+    }
+
+    // A null CRI type registers the routes at the root for the configured CREDENTIAL_ISSUER_TYPE.
+    // Otherwise they are registered under the CRI's path prefix and served as that CRI.
+    private void initCriRoutes(RoutesConfig routesConfig, CriType criType) {
+        get(
+                routesConfig,
+                criType,
+                AUTHORIZE_ENDPOINT,
+                inject(Endpoint.AUTHORIZE, authorizeHandler::doAuthorize));
+        post(
+                routesConfig,
+                criType,
+                AUTHORIZE_ENDPOINT,
+                inject(Endpoint.AUTHORIZE, authorizeHandler::formAuthorize));
+        post(routesConfig, criType, API_AUTHORIZE_ENDPOINT, authorizeHandler::apiAuthorize);
+        post(
+                routesConfig,
+                criType,
+                API_AUTHORIZE_BULK_ENDPOINT,
+                authorizeHandler::apiAuthorizeBulk);
+        get(routesConfig, criType, CRI_STUB_DATA_ENDPOINT, criStubDataHandler::getCriStubData);
+        get(
+                routesConfig,
+                criType,
+                CRI_STUB_EVIDENCE_PAYLOADS_ENDPOINT,
+                criStubDataHandler::getCriStubEvidencePayloads);
+        post(
+                routesConfig,
+                criType,
+                TOKEN_ENDPOINT,
+                inject(Endpoint.TOKEN, tokenHandler::issueAccessToken));
+        // The response shape for each CRI type is rendered when the credential is stored
+        post(
+                routesConfig,
+                criType,
+                CREDENTIALS_ENDPOINT,
+                inject(Endpoint.CREDENTIAL, credentialHandler::getResource));
+        post(
+                routesConfig,
+                criType,
                 "/credentials/generate",
                 generateCredentialHandler
                         ::generateCredential); // Make this able to take pending record as well?
-        routesConfig.get("/.well-known/jwks.json", jwksHandler::getResource);
+        post(
+                routesConfig,
+                criType,
+                "/credentials/generate/batch",
+                generateCredentialHandler::generateCredentialBatch);
+        get(
+                routesConfig,
+                criType,
+                "/.well-known/jwks.json",
+                inject(Endpoint.JWKS, jwksHandler::getResource));
+    }
+
+    private static void get(
+            RoutesConfig routesConfig, CriType criType, String path, Handler handler) {
+        String route = criRoute(criType, path);
+        routesConfig.get(route, RequestMetrics.timed("GET", route, criHandler(criType, handler)));
+    }
+
+    private static void post(
+            RoutesConfig routesConfig, CriType criType, String path, Handler handler) {
+        String route = criRoute(criType, path);
+        routesConfig.post(route, RequestMetrics.timed("POST", route, criHandler(criType, handler)));
+    }
+
+    private static String criRoute(CriType criType, String path) {
+        return criType == null ? path : CriContext.pathPrefix(criType) + path;
+    }
+
+    private static Handler criHandler(CriType criType, Handler handler) {
+        return criType == null ? handler : CriContext.bind(criType, handler);
     }
 
     private void initErrorMapping(RoutesConfig routesConfig) {
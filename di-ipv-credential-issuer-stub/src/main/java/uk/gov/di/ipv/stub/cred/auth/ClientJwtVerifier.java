@@ -1,7 +1,6 @@
 package uk.gov.di.ipv.stub.cred.auth;
 
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.ParseException;
 import com.nimbusds.oauth2.sdk.auth.PrivateKeyJWT;
 import com.nimbusds.oauth2.sdk.auth.verifier.ClientAuthenticationVerifier;
@@ -13,21 +12,27 @@ import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
 import uk.gov.di.ipv.stub.cred.error.ClientAuthenticationException;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
 import uk.gov.di.ipv.stub.cred.utils.ES256SignatureVerifier;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics.Phase;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClientJwtVerifier {
 
     public static final String NONE = "none";
-    public static final String CLIENT_ASSERTION_PARAM = "client_assertion";
 
     private final ClientAuthenticationVerifier<Object> clientAuthVerifier;
+    private final Map<String, ClientAuthenticationVerifier<Object>> criClientAuthVerifiers =
+            new ConcurrentHashMap<>();
     private final ES256SignatureVerifier es256SignatureVerifier;
 
     public ClientJwtVerifier() {
-        this.clientAuthVerifier = getPopulatedClientAuthVerifier();
+        this.clientAuthVerifier =
+                getPopulatedClientAuthVerifier(CredentialIssuerConfig.CLIENT_AUDIENCE);
         this.es256SignatureVerifier = new ES256SignatureVerifier();
     }
 
@@ -59,11 +64,18 @@ public class ClientJwtVerifier {
             if (es256SignatureVerifier.signatureIsDerFormat(
                     authenticationJwt.getClientAssertion())) {
                 concatSignatureAuthJwt =
-                        transcodeSignatureToConcatFormat(authenticationJwt, formParams);
+                        new PrivateKeyJWT(
+                                es256SignatureVerifier.transcodeSignature(
+                                        authenticationJwt.getClientAssertion()));
             } else {
                 concatSignatureAuthJwt = authenticationJwt;
             }
-            clientAuthVerifier.verify(concatSignatureAuthJwt, null, null);
+            long start = RequestMetrics.startPhase();
+            try {
+                getClientAuthVerifier().verify(concatSignatureAuthJwt, null, null);
+            } finally {
+                RequestMetrics.endPhase(Phase.SIGNATURE_VERIFY, start);
+            }
         } catch (InvalidClientException
                 | JOSEException
                 | ParseException
@@ -72,20 +84,21 @@ public class ClientJwtVerifier {
         }
     }
 
-    private PrivateKeyJWT transcodeSignatureToConcatFormat(
-            PrivateKeyJWT authJwt, Map<String, List<String>> formParams)
-            throws java.text.ParseException, JOSEException, ParseException {
-        SignedJWT transcodedSignedJwt =
-                es256SignatureVerifier.transcodeSignature(authJwt.getClientAssertion());
-        formParams.put(CLIENT_ASSERTION_PARAM, List.of(transcodedSignedJwt.serialize()));
-        return PrivateKeyJWT.parse(formParams);
+    // A CRI hosted alongside others may expect assertions for its own audience
+    private ClientAuthenticationVerifier<Object> getClientAuthVerifier() {
+        String audience = CredentialIssuerConfig.getClientAudience();
+        if (Objects.equals(audience, CredentialIssuerConfig.CLIENT_AUDIENCE)) {
+            return clientAuthVerifier;
+        }
+        return criClientAuthVerifiers.computeIfAbsent(
+                audience, ClientJwtVerifier::getPopulatedClientAuthVerifier);
     }
 
-    private ClientAuthenticationVerifier<Object> getPopulatedClientAuthVerifier() {
-        CriConfigPublicKeySelector criConfigPublicKeySelector = new CriConfigPublicKeySelector();
-        criConfigPublicKeySelector.registerClients(ConfigService.getClientConfigs());
+    private static ClientAuthenticationVerifier<Object> getPopulatedClientAuthVerifier(
+            String audience) {
+        CriConfigPublicKeySelector criConfigPublicKeySelector =
+                new CriConfigPublicKeySelector(ClientVerifierRegistry::getAuthenticationPublicKeys);
         return new ClientAuthenticationVerifier<>(
-                criConfigPublicKeySelector,
-                Set.of(new Audience(CredentialIssuerConfig.CLIENT_AUDIENCE)));
+                criConfigPublicKeySelector, Set.of(new Audience(audience)));
     }
 }
@@ -0,0 +1,168 @@
+package uk.gov.di.ipv.stub.cred.auth;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.cred.config.ClientConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+import uk.gov.di.ipv.stub.cred.config.JwtAuthenticationConfig;
+import uk.gov.di.ipv.stub.cred.service.ConfigService;
+
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Parses client signing JWKs into ECDSA verifiers and keeps them until the client config changes.
+// Each read checks whether ConfigService has published a new snapshot. If it has, the registry is
+// rebuilt. Keys whose JWK is unchanged carry over from the previous generation and are not parsed
+// again. Each CRI hosted in the process sees its own client configs, so has its own generation.
+public class ClientVerifierRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientVerifierRegistry.class);
+    private static final String JWT_AUTHENTICATION_METHOD = "jwt";
+    private static final String DEFAULT_CRI = "";
+
+    private static final Map<String, Generation> GENERATIONS = new ConcurrentHashMap<>();
+    private static final ReentrantLock REBUILD_LOCK = new ReentrantLock();
+
+    private ClientVerifierRegistry() {}
+
+    // Key used to sign request JARs
+    public static ClientKey getJarSigningKey(String clientId) {
+        ClientKeys clientKeys = current().clients().get(clientId);
+        return clientKeys == null ? null : clientKeys.jarSigningKey();
+    }
+
+    // Key used to sign client assertions, which doc app clients also use to sign their JARs
+    public static ClientKey getAuthenticationKey(String clientId) {
+        ClientKeys clientKeys = current().clients().get(clientId);
+        return clientKeys == null ? null : clientKeys.authenticationKey();
+    }
+
+    public static List<PublicKey> getAuthenticationPublicKeys(String clientId) {
+        ClientKeys clientKeys = current().clients().get(clientId);
+        if (clientKeys == null
+                || clientKeys.authenticationKey() == null
+                || !JWT_AUTHENTICATION_METHOD.equals(clientKeys.authenticationMethod())) {
+            return null;
+        }
+        return List.of(clientKeys.authenticationKey().publicKey());
+    }
+
+    private static Generation current() {
+        Map<String, ClientConfig> clientConfigs = ConfigService.getClientConfigs();
+        CriType criType = CriContext.current();
+        String cri = criType == null ? DEFAULT_CRI : criType.value;
+        Generation current = GENERATIONS.get(cri);
+        if (current == null || current.source() != clientConfigs) {
+            current = rebuild(cri, clientConfigs);
+        }
+        return current;
+    }
+
+    // A lock rather than synchronized, so a request thread waiting for another to parse keys does
+    // not pin its carrier thread
+    private static Generation rebuild(String cri, Map<String, ClientConfig> clientConfigs) {
+        REBUILD_LOCK.lock();
+        try {
+            return rebuildLocked(cri, clientConfigs);
+        } finally {
+            REBUILD_LOCK.unlock();
+        }
+    }
+
+    private static Generation rebuildLocked(String cri, Map<String, ClientConfig> clientConfigs) {
+        Generation previous = GENERATIONS.get(cri);
+        if (previous != null && previous.source() == clientConfigs) {
+            return previous;
+        }
+        Map<String, ClientKey> reusableKeys =
+                previous == null ? Map.of() : previous.keysByJwk();
+        Map<String, ClientKey> keysByJwk = new HashMap<>();
+        Map<String, ClientKeys> clients = new HashMap<>();
+        for (Map.Entry<String, ClientConfig> configEntry : clientConfigs.entrySet()) {
+            String clientId = configEntry.getKey();
+            ClientConfig clientConfig = configEntry.getValue();
+            JwtAuthenticationConfig jwtAuthentication = clientConfig.getJwtAuthentication();
+            clients.put(
+                    clientId,
+                    new ClientKeys(
+                            resolve(
+                                    clientId,
+                                    clientConfig.getSigningPublicJwk(),
+                                    reusableKeys,
+                                    keysByJwk),
+                            jwtAuthentication == null
+                                    ? null
+                                    : resolve(
+                                            clientId,
+                                            jwtAuthentication.getSigningPublicJwk(),
+                                            reusableKeys,
+                                            keysByJwk),
+                            jwtAuthentication == null
+                                    ? null
+                                    : jwtAuthentication.getAuthenticationMethod()));
+        }
+        LOGGER.info(
+                "Loaded signing keys for {} clients, {} parsed",
+                clients.size(),
+                keysByJwk.keySet().stream().filter(jwk -> !reusableKeys.containsKey(jwk)).count());
+        Generation current =
+                new Generation(
+                        clientConfigs,
+                        Collections.unmodifiableMap(clients),
+                        Collections.unmodifiableMap(keysByJwk));
+        GENERATIONS.put(cri, current);
+        return current;
+    }
+
+    private static ClientKey resolve(
+            String clientId,
+            String jwk,
+            Map<String, ClientKey> reusableKeys,
+            Map<String, ClientKey> keysByJwk) {
+        if (jwk == null) {
+            return null;
+        }
+        ClientKey clientKey = keysByJwk.getOrDefault(jwk, reusableKeys.get(jwk));
+        if (clientKey == null) {
+            try {
+                clientKey = ClientKey.parse(jwk);
+            } catch (IllegalArgumentException | ParseException | JOSEException e) {
+                LOGGER.error(
+                        "Failed to parse signing public JWK for clientId '{}'. Error:'{}'",
+                        clientId,
+                        e.getMessage());
+                return null;
+            }
+        }
+        keysByJwk.put(jwk, clientKey);
+        return clientKey;
+    }
+
+    public record ClientKey(String thumbprint, ECPublicKey publicKey, ECDSAVerifier verifier) {
+        public static ClientKey parse(String jwk) throws ParseException, JOSEException {
+            ECKey ecKey = ECKey.parse(jwk);
+            return new ClientKey(
+                    ecKey.computeThumbprint().toString(),
+                    ecKey.toECPublicKey(),
+                    new ECDSAVerifier(ecKey));
+        }
+    }
+
+    private record ClientKeys(
+            ClientKey jarSigningKey, ClientKey authenticationKey, String authenticationMethod) {}
+
+    private record Generation(
+            Map<String, ClientConfig> source,
+            Map<String, ClientKeys> clients,
+            Map<String, ClientKey> keysByJwk) {}
+}
@@ -1,31 +1,25 @@
 package uk.gov.di.ipv.stub.cred.auth;
 
-import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.jwk.ECKey;
 import com.nimbusds.oauth2.sdk.auth.ClientAuthenticationMethod;
 import com.nimbusds.oauth2.sdk.auth.Secret;
 import com.nimbusds.oauth2.sdk.auth.verifier.ClientCredentialsSelector;
 import com.nimbusds.oauth2.sdk.auth.verifier.Context;
 import com.nimbusds.oauth2.sdk.auth.verifier.InvalidClientException;
 import com.nimbusds.oauth2.sdk.id.ClientID;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import uk.gov.di.ipv.stub.cred.config.ClientConfig;
-import uk.gov.di.ipv.stub.cred.config.JwtAuthenticationConfig;
 
 import java.security.PublicKey;
-import java.security.interfaces.ECPublicKey;
-import java.text.ParseException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 public class CriConfigPublicKeySelector implements ClientCredentialsSelector<Object> {
 
-    public static final Logger LOGGER = LoggerFactory.getLogger(CriConfigPublicKeySelector.class);
+    private final Function<String, List<PublicKey>> publicKeyLookup;
 
-    public Map<String, List<PublicKey>> clientPublicKeys = new HashMap<>();
+    // Looks keys up on each call, so clients added or changed since startup are seen
+    public CriConfigPublicKeySelector(Function<String, List<PublicKey>> publicKeyLookup) {
+        this.publicKeyLookup = publicKeyLookup;
+    }
 
     @Override
     public List<Secret> selectClientSecrets(
@@ -41,7 +35,7 @@ public class CriConfigPublicKeySelector implements ClientCredentialsSelector<Obj
             boolean forceRefresh,
             Context context)
             throws InvalidClientException {
-        List<PublicKey> publicKeys = clientPublicKeys.get(claimedClientID.getValue());
+        List<PublicKey> publicKeys = publicKeyLookup.apply(claimedClientID.getValue());
         if (publicKeys == null) {
             throw new InvalidClientException(
                     String.format(
@@ -49,39 +43,4 @@ public class CriConfigPublicKeySelector implements ClientCredentialsSelector<Obj
         }
         return publicKeys;
     }
-
-    public void registerClients(Map<String, ClientConfig> clientConfigs) {
-
-        for (Map.Entry<String, ClientConfig> configEntry : clientConfigs.entrySet()) {
-            JwtAuthenticationConfig jwtAuthentication =
-                    configEntry.getValue().getJwtAuthentication();
-            String authenticationMethod =
-                    jwtAuthentication.getAuthenticationMethod() != null
-                            ? jwtAuthentication.getAuthenticationMethod()
-                            : "none";
-            LOGGER.info(
-                    String.format(
-                            "Using %s auth method for client id %s",
-                            authenticationMethod, configEntry.getKey()));
-
-            try {
-                if (authenticationMethod.equals("jwt")) {
-                    ECPublicKey publicKey =
-                            ECKey.parse(
-                                            configEntry
-                                                    .getValue()
-                                                    .getJwtAuthentication()
-                                                    .getSigningPublicJwk())
-                                    .toECPublicKey();
-
-                    clientPublicKeys.put(configEntry.getKey(), List.of(publicKey));
-                }
-            } catch (IllegalArgumentException | ParseException | JOSEException e) {
-                LOGGER.error(
-                        "Failed to parse signing public JWK for clientId '{}'. Continuing in degraded state. Error:'{}'",
-                        configEntry.getKey(),
-                        e.getMessage());
-            }
-        }
-    }
 }
@@ -0,0 +1,122 @@
+package uk.gov.di.ipv.stub.cred.config;
+
+import uk.gov.di.ipv.stub.cred.vc.EncryptionAlgorithm;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+public class CredentialIssuerConfig {
+    public static final String PORT = getConfigValue("CREDENTIAL_ISSUER_PORT", "8084");
+
+    public static final String CLIENT_AUDIENCE = getConfigValue("CLIENT_AUDIENCE");
+    public static final String DEV_DOMAIN =
+            getConfigValue("DEV_DOMAIN", ".dev.identity.account.gov.uk");
+    public static final String F2F_STUB_QUEUE_NAME_DEFAULT = getConfigValue("F2F_STUB_QUEUE_NAME");
+
+    public static final String EVIDENCE_TYPE_PARAM = "type";
+    public static final String EVIDENCE_TYPE_IDENTITY_CHECK = "IdentityCheck";
+    public static final String EVIDENCE_TXN_PARAM = "txn";
+    public static final String CHECK_DETAILS_PARAM = "checkDetails";
+    public static final String FAILED_CHECK_DETAILS_PARAM = "failedCheckDetails";
+    public static final String CRI_MITIGATION_ENABLED = "MITIGATION_ENABLED";
+    private static final String CREDENTIAL_ISSUER_TYPE_VAR = "CREDENTIAL_ISSUER_TYPE";
+
+    private CredentialIssuerConfig() {}
+
+    public static CriType getCriType() {
+        CriType current = CriContext.current();
+        if (current != null) {
+            return current;
+        }
+        return CriType.fromValue(
+                getConfigValue(CREDENTIAL_ISSUER_TYPE_VAR, CriType.EVIDENCE_CRI_TYPE.value));
+    }
+
+    public static boolean isMultiCriEnabled() {
+        return isEnabled("MULTI_CRI_ENABLED", "false");
+    }
+
+    // Every CRI type unless MULTI_CRI_TYPES names a comma separated subset
+    public static List<CriType> getMultiCriTypes() {
+        String criTypes = getConfigValue("MULTI_CRI_TYPES");
+        if (criTypes == null || criTypes.isBlank()) {
+            return List.of(CriType.values());
+        }
+        return Arrays.stream(criTypes.split(","))
+                .map(String::trim)
+                .map(CriType::fromValue)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public static String getName() {
+        return getCriConfigValue("CREDENTIAL_ISSUER_NAME", "Credential Issuer Stub");
+    }
+
+    public static String getClientAudience() {
+        return getCriConfigValue("CLIENT_AUDIENCE", CLIENT_AUDIENCE);
+    }
+
+    public static String getVerifiableCredentialIssuer() {
+        return getCriConfigValue("VC_ISSUER", null);
+    }
+
+    public static String getVerifiableCredentialSigningKey() {
+        return getCriConfigValue("VC_SIGNING_KEY", null);
+    }
+
+    public static EncryptionAlgorithm getVerifiableCredentialSigningAlgorithm() {
+        var signingAlgorithm = getCriConfigValue("VC_SIGNING_ALGORITHM", null);
+        if (signingAlgorithm == null) {
+            return EncryptionAlgorithm.EC;
+        }
+
+        return EncryptionAlgorithm.valueOf(signingAlgorithm);
+    }
+
+    public static int getSessionStoreMaxEntries() {
+        return Integer.parseInt(getConfigValue("SESSION_STORE_MAX_ENTRIES", "10000"));
+    }
+
+    public static Duration getAuthCodeTtl() {
+        return Duration.ofSeconds(Long.parseLong(getConfigValue("AUTH_CODE_TTL_SECONDS", "600")));
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return isEnabled("VIRTUAL_THREADS_ENABLED", "false");
+    }
+
+    public static String getStatelessTokenKey() {
+        return getConfigValue("STATELESS_TOKEN_KEY", null);
+    }
+
+    public static String getConfigValue(String key) {
+        return getConfigValue(key, null);
+    }
+
+    private static String getConfigValue(String key, String defaultValue) {
+        var envValue = System.getenv(key);
+        if (envValue == null) {
+            return defaultValue;
+        }
+
+        return envValue;
+    }
+
+    private static String getCriConfigValue(String key, String defaultValue) {
+        CriType criType = CriContext.current();
+        if (criType != null) {
+            var criValue = System.getenv(criType.value + "_" + key);
+            if (criValue != null) {
+                return criValue;
+            }
+        }
+        return getConfigValue(key, defaultValue);
+    }
+
+    public static boolean isEnabled(String key, String defaultValue) {
+        return Boolean.parseBoolean(getConfigValue(key, defaultValue));
+    }
+}
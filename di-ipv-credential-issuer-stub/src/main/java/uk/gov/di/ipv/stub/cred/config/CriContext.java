@@ -0,0 +1,59 @@
+package uk.gov.di.ipv.stub.cred.config;
+
+import io.javalin.http.Handler;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+// The CRI a request is being served as when one process hosts several CRIs. Routes under a CRI's
+// path prefix bind it for the duration of the handler. While it is bound, getCriType returns it
+// and CRI specific config is read from <CRI>_<NAME> environment variables before <NAME>.
+public class CriContext {
+    private static final ThreadLocal<CriType> CURRENT = new ThreadLocal<>();
+
+    private CriContext() {}
+
+    public static CriType current() {
+        return CURRENT.get();
+    }
+
+    // Prefixes a stored key with the CRI being served, so an auth code, access token or credential
+    // stored as one CRI is not found when redeemed as another
+    public static String scoped(String key) {
+        return CredentialIssuerConfig.getCriType().value + ":" + key;
+    }
+
+    public static String pathPrefix(CriType criType) {
+        return "/" + criType.value.toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public static Handler bind(CriType criType, Handler handler) {
+        return ctx ->
+                call(
+                        criType,
+                        () -> {
+                            handler.handle(ctx);
+                            return null;
+                        });
+    }
+
+    // Carries the caller's CRI over to a task run on another thread
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        CriType criType = CURRENT.get();
+        return criType == null ? task : () -> call(criType, task);
+    }
+
+    public static <T> T call(CriType criType, Callable<T> task) throws Exception {
+        CriType previous = CURRENT.get();
+        CURRENT.set(criType);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package uk.gov.di.ipv.stub.cred.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSADecrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.cred.vc.EncryptionAlgorithm;
+
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parses the encryption and VC signing keys once and hands out the derived signer, decrypter and
+// public JWKS. The raw key values are re-read on each call, which is a cheap environment lookup,
+// and a changed value is parsed and swapped in as a new immutable snapshot. Each CRI hosted in
+// the process keeps its own VC signing key snapshot.
+public class KeyRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyRegistry.class);
+    private static final String PRIVATE_ENCRYPTION_KEY_JWK = "PRIVATE_ENCRYPTION_KEY_JWK";
+    private static final String DEFAULT_CRI = "";
+
+    private static final Map<String, SigningKeys> SIGNING_KEYS = new ConcurrentHashMap<>();
+    private static volatile EncryptionKeys encryptionKeys;
+
+    private KeyRegistry() {}
+
+    public static void preload() {
+        try {
+            getEncryptionKeys();
+        } catch (ParseException | JOSEException | RuntimeException e) {
+            LOGGER.warn("Unable to load private encryption key: {}", e.getMessage());
+        }
+        try {
+            getSigningKeys();
+        } catch (NoSuchAlgorithmException
+                | InvalidKeySpecException
+                | JOSEException
+                | RuntimeException e) {
+            LOGGER.warn("Unable to load VC signing key: {}", e.getMessage());
+        }
+    }
+
+    public static RSAKey getPrivateEncryptionKey() throws ParseException, JOSEException {
+        return getEncryptionKeys().privateKey();
+    }
+
+    public static JWEDecrypter getDecrypter() throws ParseException, JOSEException {
+        return getEncryptionKeys().decrypter();
+    }
+
+    public static Map<String, Object> getPublicJwks() throws ParseException, JOSEException {
+        return getEncryptionKeys().publicJwks();
+    }
+
+    public static SigningKeys getVcSigningKeys()
+            throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
+        return getSigningKeys();
+    }
+
+    private static EncryptionKeys getEncryptionKeys() throws ParseException, JOSEException {
+        String source = CredentialIssuerConfig.getConfigValue(PRIVATE_ENCRYPTION_KEY_JWK);
+        EncryptionKeys current = encryptionKeys;
+        if (current == null || !Objects.equals(current.source(), source)) {
+            current = EncryptionKeys.parse(source);
+            encryptionKeys = current;
+            LOGGER.info(
+                    "Loaded private encryption key with kid '{}'", current.privateKey().getKeyID());
+        }
+        return current;
+    }
+
+    private static SigningKeys getSigningKeys()
+            throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
+        EncryptionAlgorithm algorithm =
+                CredentialIssuerConfig.getVerifiableCredentialSigningAlgorithm();
+        String source = CredentialIssuerConfig.getVerifiableCredentialSigningKey();
+        CriType criType = CriContext.current();
+        String cri = criType == null ? DEFAULT_CRI : criType.value;
+        SigningKeys current = SIGNING_KEYS.get(cri);
+        if (current == null
+                || current.algorithm() != algorithm
+                || !Objects.equals(current.source(), source)) {
+            current = SigningKeys.parse(algorithm, source);
+            SIGNING_KEYS.put(cri, current);
+            LOGGER.info("Loaded {} VC signing key", algorithm);
+        }
+        return current;
+    }
+
+    private record EncryptionKeys(
+            String source,
+            RSAKey privateKey,
+            JWEDecrypter decrypter,
+            Map<String, Object> publicJwks) {
+        static EncryptionKeys parse(String source) throws ParseException, JOSEException {
+            RSAKey privateKey = RSAKey.parse(source);
+            return new EncryptionKeys(
+                    source,
+                    privateKey,
+                    new RSADecrypter(privateKey),
+                    Collections.unmodifiableMap(
+                            new JWKSet(List.of(privateKey.toPublicJWK())).toJSONObject(true)));
+        }
+    }
+
+    public record SigningKeys(
+            EncryptionAlgorithm algorithm, String source, JWSSigner signer, JWSHeader jwsHeader) {
+        static SigningKeys parse(EncryptionAlgorithm algorithm, String source)
+                throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
+            var kf = KeyFactory.getInstance(algorithm.name());
+            var privateKeySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(source));
+
+            return switch (algorithm) {
+                case EC ->
+                        new SigningKeys(
+                                algorithm,
+                                source,
+                                new ECDSASigner((ECPrivateKey) kf.generatePrivate(privateKeySpec)),
+                                new JWSHeader.Builder(JWSAlgorithm.ES256)
+                                        .type(JOSEObjectType.JWT)
+                                        .build());
+                case RSA ->
+                        new SigningKeys(
+                                algorithm,
+                                source,
+                                new RSASSASigner(kf.generatePrivate(privateKeySpec)),
+                                new JWSHeader.Builder(JWSAlgorithm.RS256)
+                                        .type(JOSEObjectType.JWT)
+                                        .build());
+            };
+        }
+    }
+}
@@ -8,5 +8,27 @@ public record ApiAuthRequest(
         Long nbf,
         Mitigations mitigations,
         F2fDetails f2f,
-        RequestedError requestedError)
-        implements AuthRequest {}
+        RequestedError requestedError,
+        Boolean synchronousDispatch)
+        implements AuthRequest {
+    public ApiAuthRequest(
+            String clientId,
+            String request,
+            String credentialSubjectJson,
+            String evidenceJson,
+            Long nbf,
+            Mitigations mitigations,
+            F2fDetails f2f,
+            RequestedError requestedError) {
+        this(
+                clientId,
+                request,
+                credentialSubjectJson,
+                evidenceJson,
+                nbf,
+                mitigations,
+                f2f,
+                requestedError,
+                null);
+    }
+}
@@ -16,4 +16,6 @@ public interface AuthRequest {
     Mitigations mitigations();
 
     F2fDetails f2f();
+
+    Boolean synchronousDispatch();
 }
@@ -13,6 +13,7 @@ import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.CLIENT_ID;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.EVIDENCE_JSON_PAYLOAD;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.JSON_PAYLOAD;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.REQUEST;
+import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.SYNCHRONOUS_DISPATCH;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.VC_NOT_BEFORE_DAY;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.VC_NOT_BEFORE_FLAG;
 import static uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants.VC_NOT_BEFORE_HOURS;
@@ -34,7 +35,8 @@ public record FormAuthRequest(
         Mitigations mitigations,
         F2fDetails f2f,
         RequestedError requestedError,
-        Long nbf)
+        Long nbf,
+        Boolean synchronousDispatch)
         implements AuthRequest {
     private static final String CHECKED = "checked";
     private static final String ON = "on";
@@ -52,6 +54,7 @@ public record FormAuthRequest(
                 .f2f(F2fDetails.fromFormContext(ctx))
                 .requestedError(RequestedError.fromFormContext(ctx))
                 .nbf(generateNbf(ctx))
+                .synchronousDispatch(CHECKED.equals(ctx.formParam(SYNCHRONOUS_DISPATCH)))
                 .build();
     }
 
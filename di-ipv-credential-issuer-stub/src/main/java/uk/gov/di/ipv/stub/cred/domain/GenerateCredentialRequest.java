@@ -5,4 +5,5 @@ public record GenerateCredentialRequest(
         String clientId,
         String credentialSubjectJson,
         String evidenceJson,
-        Long nbf) {}
+        Long nbf,
+        Boolean uniqueJti) {}
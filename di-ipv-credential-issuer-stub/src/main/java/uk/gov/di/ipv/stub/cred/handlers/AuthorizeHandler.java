@@ -1,11 +1,10 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWEObject;
-import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.AuthorizationCode;
@@ -24,29 +23,23 @@ import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.cred.auth.ClientVerifierRegistry;
 import uk.gov.di.ipv.stub.cred.config.ClientConfig;
 import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 import uk.gov.di.ipv.stub.cred.config.CriType;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataAddress;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataBav;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataClaimedIdentity;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataDcmaw;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataDrivingLicence;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataDwpKbv;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataExperianKbv;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataF2f;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataFraud;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataNino;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataOpenBanking;
-import uk.gov.di.ipv.stub.cred.data.CriStubDataUkPassport;
-import uk.gov.di.ipv.stub.cred.data.IdentityCheckSubjectCriStubData;
 import uk.gov.di.ipv.stub.cred.domain.*;
 import uk.gov.di.ipv.stub.cred.error.CriStubException;
 import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
 import uk.gov.di.ipv.stub.cred.service.CredentialService;
+import uk.gov.di.ipv.stub.cred.service.DispatchOutbox;
+import uk.gov.di.ipv.stub.cred.service.JarCache;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StoredCredential;
 import uk.gov.di.ipv.stub.cred.utils.ES256SignatureVerifier;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics.Phase;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 import uk.gov.di.ipv.stub.cred.validation.Validator;
 import uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialGenerator;
@@ -60,7 +53,6 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.text.ParseException;
 import java.time.Instant;
@@ -69,6 +61,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
 import static com.nimbusds.oauth2.sdk.util.CollectionUtils.isEmpty;
@@ -96,8 +92,6 @@ public class AuthorizeHandler {
     public static final String SHARED_CLAIMS = "shared_claims";
     public static final String EVIDENCE_REQUESTED = "evidence_requested";
 
-    public static final String CRI_STUB_DATA = "cri_stub_data";
-    public static final String CRI_STUB_EVIDENCE_PAYLOADS = "cri_stub_evidence_payloads";
     public static final String CRI_MITIGATION_ENABLED_PARAM = "isCriMitigationEnabled";
 
     private static final String ERROR_CODE_INVALID_REQUEST_JWT = "invalid_request_jwt";
@@ -121,13 +115,26 @@ public class AuthorizeHandler {
             "F2F_STUB_QUEUE_API_KEY"; // pragma: allowlist secret
     private static final int F2F_DEFAULT_DELAY_SECONDS = 10;
     private static final String X_API_KEY = "x-api-key";
+    private static final String ASYNC_DISPATCH_ENABLED = "ASYNC_DISPATCH_ENABLED";
+    private static final String BULK_MAX_SIZE_ENV_VAR = "API_AUTHORIZE_BULK_MAX_SIZE";
+    private static final int DEFAULT_BULK_MAX_SIZE = 1000;
+    private static final ExecutorService BULK_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "api-authorize-bulk");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
 
     private final AuthCodeService authCodeService;
     private final CredentialService credentialService;
     private final RequestedErrorResponseService requestedErrorResponseService;
     private final ES256SignatureVerifier es256SignatureVerifier = new ES256SignatureVerifier();
+    private final JarCache jarCache = new JarCache();
     private final VerifiableCredentialGenerator verifiableCredentialGenerator;
     private final HttpClient httpClient;
+    private final DispatchOutbox dispatchOutbox;
 
     public AuthorizeHandler(
             AuthCodeService authCodeService,
@@ -140,6 +147,7 @@ public class AuthorizeHandler {
         this.requestedErrorResponseService = requestedErrorResponseService;
         this.verifiableCredentialGenerator = verifiableCredentialGenerator;
         this.httpClient = httpClient;
+        this.dispatchOutbox = new DispatchOutbox(httpClient);
     }
 
     public void doAuthorize(Context ctx) throws Exception {
@@ -160,33 +168,21 @@ public class AuthorizeHandler {
                         "Error: Could not find client configuration details for: " + clientIdValue);
             }
 
-            SignedJWT signedJWT =
-                    getSignedJWT(
-                            requestValue,
-                            CredentialIssuerConfig.getPrivateEncryptionKey().toPrivateKey());
+            JWTClaimsSet claimsSet = jarCache.get(requestValue).getClaimsSet();
+            String redirectUri = claimsSet.getClaim(RequestParamConstants.REDIRECT_URI).toString();
+            String state = claimsSet.getClaim(RequestParamConstants.STATE).toString();
 
             AuthorizationErrorResponse errorResponse =
                     new AuthorizationErrorResponse(
-                            URI.create(
-                                    signedJWT
-                                            .getJWTClaimsSet()
-                                            .getClaim(RequestParamConstants.REDIRECT_URI)
-                                            .toString()),
+                            URI.create(redirectUri),
                             validationResult.getError(),
-                            State.parse(
-                                    signedJWT
-                                            .getJWTClaimsSet()
-                                            .getClaim(RequestParamConstants.STATE)
-                                            .toString()),
+                            State.parse(state),
                             ResponseMode.QUERY);
 
             ctx.redirect(errorResponse.toURI().toString());
             return;
         }
 
-        var criStubData = getCriStubData(CredentialIssuerConfig.getName());
-        var criStubEvidencePayloads = getCriStubEvidencePayloads();
-
         String sharedAttributesJson;
         String evidenceRequestedJson;
         String requestScope;
@@ -238,8 +234,6 @@ public class AuthorizeHandler {
             frontendParams.put(SHARED_CLAIMS, sharedAttributesJson);
         }
         frontendParams.put(EVIDENCE_REQUESTED, evidenceRequestedJson);
-        frontendParams.put(CRI_STUB_DATA, criStubData);
-        frontendParams.put(CRI_STUB_EVIDENCE_PAYLOADS, criStubEvidencePayloads);
         frontendParams.put(F2F_STUB_QUEUE_NAME, F2F_STUB_QUEUE_NAME_DEFAULT);
 
         String error = ctx.attribute(ERROR_PARAM);
@@ -257,25 +251,72 @@ public class AuthorizeHandler {
     public void apiAuthorize(Context ctx) throws Exception {
         ApiAuthRequest apiAuthRequest = ctx.bodyAsClass(ApiAuthRequest.class);
         JWTClaimsSet claimsSet = getClaimsSet(apiAuthRequest);
-        String redirectUri = generateResponseRedirect(apiAuthRequest, claimsSet);
+        String redirectUri = generateResponseRedirect(apiAuthRequest, claimsSet, false);
 
         ctx.status(200);
         ctx.json(Map.of("redirectUri", redirectUri, "jarPayload", claimsSet.toJSONObject()));
     }
 
+    // Authorizes a JSON array of API requests in parallel, for seeding test suites. Results are
+    // returned in request order, each with either the redirect and JAR payload or an error. F2F
+    // and CIMIT posts go through the dispatch outbox unless an item asks for synchronous dispatch.
+    public void apiAuthorizeBulk(Context ctx) throws Exception {
+        ApiAuthRequest[] apiAuthRequests = ctx.bodyAsClass(ApiAuthRequest[].class);
+        int maxBulkSize = getBulkMaxSize();
+        if (apiAuthRequests.length > maxBulkSize) {
+            throw new BadRequestResponse(
+                    String.format("Bulk size limit of %d exceeded", maxBulkSize));
+        }
+
+        List<Future<BulkAuthorizeResult>> results = new ArrayList<>(apiAuthRequests.length);
+        for (int i = 0; i < apiAuthRequests.length; i++) {
+            int index = i;
+            ApiAuthRequest apiAuthRequest = apiAuthRequests[i];
+            results.add(
+                    BULK_EXECUTOR.submit(
+                            RequestMetrics.propagate(
+                                    CriContext.propagate(
+                                            () -> bulkAuthorize(index, apiAuthRequest)))));
+        }
+
+        List<BulkAuthorizeResult> response = new ArrayList<>(results.size());
+        for (Future<BulkAuthorizeResult> result : results) {
+            try {
+                response.add(result.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        ctx.status(200);
+        ctx.json(response);
+    }
+
+    private BulkAuthorizeResult bulkAuthorize(int index, ApiAuthRequest apiAuthRequest) {
+        try {
+            JWTClaimsSet claimsSet = getClaimsSet(apiAuthRequest);
+            String redirectUri = generateResponseRedirect(apiAuthRequest, claimsSet, true);
+            return new BulkAuthorizeResult(index, redirectUri, claimsSet.toJSONObject(), null);
+        } catch (Exception e) {
+            LOGGER.warn("Bulk authorize request {} failed: {}", index, e.getMessage());
+            return new BulkAuthorizeResult(index, null, null, e.getMessage());
+        }
+    }
+
     public void formAuthorize(Context ctx) throws Exception {
         FormAuthRequest formAuthRequest = FormAuthRequest.fromFormContext(ctx);
         JWTClaimsSet claimsSet = getClaimsSet(formAuthRequest);
-        ctx.redirect(generateResponseRedirect(formAuthRequest, claimsSet));
+        ctx.redirect(generateResponseRedirect(formAuthRequest, claimsSet, false));
     }
 
-    private String generateResponseRedirect(AuthRequest authRequest, JWTClaimsSet claimsSet)
+    private String generateResponseRedirect(
+            AuthRequest authRequest, JWTClaimsSet claimsSet, boolean bulk)
             throws IOException,
                     NoSuchAlgorithmException,
                     InvalidKeySpecException,
                     JOSEException,
                     ParseException {
-        AuthorizationErrorResponse requestedAuthErrorResponse = handleRequestedError(authRequest);
+        AuthorizationErrorResponse requestedAuthErrorResponse =
+                handleRequestedError(authRequest, claimsSet);
         if (requestedAuthErrorResponse != null) {
             return requestedAuthErrorResponse.toURI().toString();
         }
@@ -286,8 +327,6 @@ public class AuthorizeHandler {
         String state = claimsSet.getClaim(RequestParamConstants.STATE).toString();
 
         try {
-            AuthorizationSuccessResponse successResponse = generateAuthCode(state, redirectUri);
-
             var credentialsSubject = authRequest.credentialSubjectJson();
 
             var credentialAttributesMap = jsonStringToMap(credentialsSubject);
@@ -295,28 +334,30 @@ public class AuthorizeHandler {
             Long nbf =
                     authRequest.nbf() != null ? authRequest.nbf() : Instant.now().getEpochSecond();
 
-            String signedVcJwt =
-                    verifiableCredentialGenerator
-                            .generate(
-                                    new Credential(
-                                            credentialAttributesMap,
-                                            generateEvidenceMap(authRequest),
-                                            userId,
-                                            clientIdValue,
-                                            nbf))
-                            .serialize();
-
+            SignedJWT signedVc =
+                    verifiableCredentialGenerator.generate(
+                            new Credential(
+                                    credentialAttributesMap,
+                                    generateEvidenceMap(authRequest),
+                                    userId,
+                                    clientIdValue,
+                                    nbf));
+            // Rendered now, while the claims are at hand, so the credential endpoint only has
+            // to write it out
+            StoredCredential credential = StoredCredential.render(getCriType(), signedVc);
+            String signedVcJwt = credential.signedJwt();
+
+            boolean asyncDispatch = isAsyncDispatch(authRequest, bulk);
             if (CredentialIssuerConfig.isEnabled(
                     CredentialIssuerConfig.CRI_MITIGATION_ENABLED, "false")) {
-                processMitigatedCIs(userId, authRequest, signedVcJwt);
+                processMitigatedCIs(userId, authRequest, credential.jti(), asyncDispatch);
             }
 
-            handleF2fRequests(authRequest.f2f(), userId, state, signedVcJwt);
+            handleF2fRequests(authRequest.f2f(), userId, state, signedVcJwt, asyncDispatch);
 
-            persistData(
-                    authRequest, successResponse.getAuthorizationCode(), signedVcJwt, redirectUri);
+            AuthorizationCode authorizationCode = persistData(authRequest, credential, redirectUri);
 
-            return successResponse.toURI().toString();
+            return generateAuthCode(authorizationCode, state, redirectUri).toURI().toString();
         } catch (CriStubException e) {
             AuthorizationErrorResponse errorResponse = generateErrorResponse(e, redirectUri);
             return errorResponse.toURI().toString();
@@ -343,10 +384,7 @@ public class AuthorizeHandler {
                     "Error: Could not find client configuration details for: " + clientIdValue);
         }
 
-        SignedJWT signedJWT =
-                getSignedJWT(jar, CredentialIssuerConfig.getPrivateEncryptionKey().toPrivateKey());
-
-        return signedJWT.getJWTClaimsSet();
+        return jarCache.get(jar).getClaimsSet();
     }
 
     private Map<String, Object> generateEvidenceMap(AuthRequest authRequest)
@@ -369,7 +407,18 @@ public class AuthorizeHandler {
         return evidenceMap;
     }
 
-    private void processMitigatedCIs(String userId, AuthRequest authRequest, String signedVcJwt)
+    private boolean isAsyncDispatch(AuthRequest authRequest, boolean bulk) {
+        return (bulk || CredentialIssuerConfig.isEnabled(ASYNC_DISPATCH_ENABLED, "false"))
+                && !Boolean.TRUE.equals(authRequest.synchronousDispatch());
+    }
+
+    private static int getBulkMaxSize() {
+        String maxBulkSize = getConfigValue(BULK_MAX_SIZE_ENV_VAR);
+        return maxBulkSize == null ? DEFAULT_BULK_MAX_SIZE : Integer.parseInt(maxBulkSize);
+    }
+
+    private void processMitigatedCIs(
+            String userId, AuthRequest authRequest, String jwtId, boolean asyncDispatch)
             throws CriStubException {
         var mitigations = authRequest.mitigations();
         if (mitigations == null) {
@@ -380,32 +429,34 @@ public class AuthorizeHandler {
             String cimitStubUrl = mitigations.cimitStubUrl();
             String cimitStubApikey = mitigations.cimitStubApiKey();
             String postUrlTemplate = "/user/%s/mitigations/%s";
+            var encodedUserId = URLEncoder.encode(userId, StandardCharsets.UTF_8);
             for (String ciCode : mitigations.mitigatedCi()) {
-                String jwtId;
-                try {
-                    jwtId = SignedJWT.parse(signedVcJwt).getJWTClaimsSet().getJWTID();
-                } catch (ParseException e) {
-                    throw new CriStubException("Unable to parse signed JWT", e);
-                }
-
-                var encodedUserId = URLEncoder.encode(userId, StandardCharsets.UTF_8);
                 String postUrl =
                         cimitStubUrl + String.format(postUrlTemplate, encodedUserId, ciCode);
                 LOGGER.info("Managed cimit stub postUrl:{}", postUrl);
+                String body =
+                        String.format("{\"mitigations\":[\"M01\"],\"vcJti\":\"%s\"}", jwtId);
                 try {
                     HttpRequest request =
                             HttpRequest.newBuilder()
                                     .uri(new URI(postUrl))
                                     .header("Content-Type", APPLICATION_JSON)
                                     .header("x-api-key", cimitStubApikey)
-                                    .POST(
-                                            HttpRequest.BodyPublishers.ofString(
-                                                    String.format(
-                                                            "{\"mitigations\":[\"M01\"],\"vcJti\":\"%s\"}",
-                                                            jwtId)))
+                                    .POST(HttpRequest.BodyPublishers.ofString(body))
                                     .build();
 
-                    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (asyncDispatch
+                            && dispatchOutbox.offer(request, "CI mitigation " + ciCode)) {
+                        continue;
+                    }
+
+                    HttpResponse<String> response;
+                    long start = RequestMetrics.startPhase();
+                    try {
+                        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    } finally {
+                        RequestMetrics.endPhase(Phase.OUTBOUND_HTTP, start);
+                    }
                     int responseStatusCode = response.statusCode();
                     LOGGER.info("Processed mitigated CI's with response: {}", responseStatusCode);
                     if (responseStatusCode != 200) {
@@ -431,9 +482,8 @@ public class AuthorizeHandler {
         }
     }
 
-    private AuthorizationSuccessResponse generateAuthCode(String state, String redirectUri) {
-        AuthorizationCode authorizationCode = new AuthorizationCode();
-
+    private AuthorizationSuccessResponse generateAuthCode(
+            AuthorizationCode authorizationCode, String state, String redirectUri) {
         return new AuthorizationSuccessResponse(
                 URI.create(redirectUri),
                 authorizationCode,
@@ -452,16 +502,22 @@ public class AuthorizeHandler {
                 ResponseMode.QUERY);
     }
 
-    private void persistData(
-            AuthRequest authRequest,
-            AuthorizationCode authorizationCode,
-            String signedVcJwt,
-            String redirectUri) {
+    private AuthorizationCode persistData(
+            AuthRequest authRequest, StoredCredential credential, String redirectUri) {
+        if (this.authCodeService.isStateless()) {
+            // The code carries the VC itself so the token call can land on any instance
+            return this.authCodeService.createStatelessAuthCode(
+                    credential.signedJwt(),
+                    redirectUri,
+                    RequestedErrorResponseService.toParamsValuesMap(authRequest.requestedError()));
+        }
+        AuthorizationCode authorizationCode = new AuthorizationCode();
         String resourceId = UUID.randomUUID().toString();
         this.authCodeService.persist(authorizationCode, resourceId, redirectUri);
-        this.credentialService.persist(signedVcJwt, resourceId);
+        this.credentialService.persist(credential, resourceId);
         this.requestedErrorResponseService.persist(
                 authorizationCode.getValue(), authRequest.requestedError());
+        return authorizationCode;
     }
 
     private Map<String, Object> jsonStringToMap(String payload) throws CriStubException {
@@ -653,11 +709,8 @@ public class AuthorizeHandler {
         ClientConfig clientConfig = ConfigService.getClientConfig(clientIdValue);
 
         try {
-            SignedJWT signedJWT =
-                    getSignedJWT(
-                            ctx.queryParam(RequestParamConstants.REQUEST),
-                            CredentialIssuerConfig.getPrivateEncryptionKey().toPrivateKey());
-            JWTClaimsSet jwtClaimsSet = signedJWT.getJWTClaimsSet();
+            JWTClaimsSet jwtClaimsSet =
+                    jarCache.get(ctx.queryParam(RequestParamConstants.REQUEST)).getClaimsSet();
 
             if (Validator.isNullBlankOrEmpty(
                             jwtClaimsSet.getClaim(RequestParamConstants.RESPONSE_TYPE))
@@ -719,72 +772,6 @@ public class AuthorizeHandler {
         return null;
     }
 
-    private SignedJWT getSignedJWT(String request, PrivateKey encryptionPrivateKey)
-            throws ParseException {
-        try {
-            JWEObject jweObject = getJweObject(request, encryptionPrivateKey);
-            return jweObject.getPayload().toSignedJWT();
-        } catch (ParseException | JOSEException e) {
-            return SignedJWT.parse(request);
-        }
-    }
-
-    private String getCriStubData(String stubName) throws IOException {
-        List<IdentityCheckSubjectCriStubData> data;
-
-        switch (stubName) {
-            case "Address (Stub)":
-                data = CriStubDataAddress.Data;
-                break;
-            case "Bank account verification (Stub)":
-                data = CriStubDataBav.Data;
-                break;
-            case "Claimed Identity (Stub)":
-                data = CriStubDataClaimedIdentity.Data;
-                break;
-            case "DOC Checking App (Stub)":
-                data = CriStubDataDcmaw.getData();
-                break;
-            case "DWP KBV (Stub)":
-                data = CriStubDataDwpKbv.Data;
-                break;
-            case "Driving Licence (Stub)":
-                data = CriStubDataDrivingLicence.getData();
-                break;
-            case "Experian Knowledge Based Verification (Stub)":
-                data = CriStubDataExperianKbv.Data;
-                break;
-            case "Face to Face Check (Stub)":
-                data = CriStubDataF2f.getData();
-                break;
-            case "Fraud Check (Stub)":
-                data = CriStubDataFraud.Data;
-                break;
-            case "National Insurance Number (Stub)":
-                data = CriStubDataNino.Data;
-                break;
-            case "Open Banking (Stub)":
-                data = CriStubDataOpenBanking.Data;
-                break;
-            case "UK Passport (Stub)":
-                data = CriStubDataUkPassport.Data;
-                break;
-            default:
-                throw new IllegalArgumentException("Unrecognised stub type: " + stubName);
-        }
-
-        return OBJECT_MAPPER.writeValueAsString(data);
-    }
-
-    private String getCriStubEvidencePayloads() throws IOException {
-        return OBJECT_MAPPER
-                .readTree(
-                        AuthorizeHandler.class.getResourceAsStream(
-                                "/data/criStubEvidencePayloads.json"))
-                .get("data")
-                .toString();
-    }
-
     private JWTClaimsSet getJwtClaimsSet(Context ctx) throws Exception {
         String requestParam = ctx.queryParam(RequestParamConstants.REQUEST);
         String clientIdParam = ctx.queryParam(RequestParamConstants.CLIENT_ID);
@@ -798,21 +785,23 @@ public class AuthorizeHandler {
 
         if (!Validator.isNullBlankOrEmpty(requestParam)) {
             try {
-                SignedJWT signedJWT =
-                        getSignedJWT(
-                                requestParam,
-                                CredentialIssuerConfig.getPrivateEncryptionKey().toPrivateKey());
-                String publicJwk =
+                JarCache.DecryptedJar decryptedJar = jarCache.get(requestParam);
+                ClientVerifierRegistry.ClientKey signingKey =
                         getCriType().equals(DOC_CHECK_APP_CRI_TYPE)
-                                ? clientConfig.getJwtAuthentication().getSigningPublicJwk()
-                                : clientConfig.getSigningPublicJwk();
-                if (!es256SignatureVerifier.valid(signedJWT, publicJwk)) {
+                                ? ClientVerifierRegistry.getAuthenticationKey(clientIdParam)
+                                : ClientVerifierRegistry.getJarSigningKey(clientIdParam);
+                if (signingKey == null) {
+                    throw new Exception(
+                            "Error: failed to parse the signing public JWK for: "
+                                    + clientIdParam);
+                }
+                if (!decryptedJar.isSignatureValid(signingKey, es256SignatureVerifier)) {
                     LOGGER.error("JWT signature is invalid");
                     throw new Exception(
                             "Error: Signature of the shared attribute JWT is not valid");
                 }
 
-                JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+                JWTClaimsSet claimsSet = decryptedJar.getClaimsSet();
                 if (claimsSet == null) {
                     throw new Exception("Claims set is null");
                 }
@@ -864,21 +853,17 @@ public class AuthorizeHandler {
         }
     }
 
-    private JWEObject getJweObject(String requestParam, PrivateKey encryptionPrivateKey)
-            throws ParseException, JOSEException {
-        JWEObject encryptedJweObject = JWEObject.parse(requestParam);
-        RSADecrypter rsaDecrypter = new RSADecrypter(encryptionPrivateKey);
-        encryptedJweObject.decrypt(rsaDecrypter);
-        return encryptedJweObject;
-    }
-
-    private AuthorizationErrorResponse handleRequestedError(AuthRequest authRequest)
-            throws ParseException, JOSEException {
-        return requestedErrorResponseService.getRequestedAuthErrorResponse(authRequest);
+    private AuthorizationErrorResponse handleRequestedError(
+            AuthRequest authRequest, JWTClaimsSet claimsSet) {
+        return requestedErrorResponseService.getRequestedAuthErrorResponse(authRequest, claimsSet);
     }
 
     private void handleF2fRequests(
-            F2fDetails f2fDetails, String userId, String state, String signedVcJwt)
+            F2fDetails f2fDetails,
+            String userId,
+            String state,
+            String signedVcJwt,
+            boolean asyncDispatch)
             throws IOException, InterruptedException {
         if (f2fDetails == null) {
             return;
@@ -901,14 +886,7 @@ public class AuthorizeHandler {
                                             OBJECT_MAPPER.writeValueAsString(enqueueLambdaRequest)))
                             .build();
 
-            var responseStatusCode =
-                    httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
-            if (responseStatusCode < 200 || responseStatusCode > 299) {
-                LOGGER.warn(
-                        String.format(
-                                "failed to send VC to F2F queue - status code: %d",
-                                responseStatusCode));
-            }
+            sendToF2fQueue(request, "VC", asyncDispatch);
         }
 
         if (f2fDetails.sendErrorToQueue()) {
@@ -929,14 +907,32 @@ public class AuthorizeHandler {
                                             OBJECT_MAPPER.writeValueAsString(enqueueLambdaRequest)))
                             .build();
 
-            var responseStatusCode =
+            sendToF2fQueue(request, "error", asyncDispatch);
+        }
+    }
+
+    private void sendToF2fQueue(HttpRequest request, String description, boolean asyncDispatch)
+            throws IOException, InterruptedException {
+        if (asyncDispatch && dispatchOutbox.offer(request, "F2F queue " + description)) {
+            return;
+        }
+        int responseStatusCode;
+        long start = RequestMetrics.startPhase();
+        try {
+            responseStatusCode =
                     httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
-            if (responseStatusCode < 200 || responseStatusCode > 299) {
-                LOGGER.warn(
-                        String.format(
-                                "failed to send error to F2F queue - status code: %d",
-                                responseStatusCode));
-            }
+        } finally {
+            RequestMetrics.endPhase(Phase.OUTBOUND_HTTP, start);
+        }
+        if (responseStatusCode < 200 || responseStatusCode > 299) {
+            LOGGER.warn(
+                    String.format(
+                            "failed to send %s to F2F queue - status code: %d",
+                            description, responseStatusCode));
         }
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BulkAuthorizeResult(
+            int index, String redirectUri, Map<String, Object> jarPayload, String error) {}
 }
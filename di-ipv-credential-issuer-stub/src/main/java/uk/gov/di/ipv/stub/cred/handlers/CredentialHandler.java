@@ -1,18 +1,20 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
+import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
+import com.nimbusds.oauth2.sdk.token.BearerTokenError;
 import com.nimbusds.openid.connect.sdk.UserInfoErrorResponse;
 import io.javalin.http.Context;
 import io.javalin.http.Header;
-import io.javalin.http.HttpStatus;
 import uk.gov.di.ipv.stub.cred.service.CredentialService;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StoredCredential;
 import uk.gov.di.ipv.stub.cred.service.TokenService;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 
-public class CredentialHandler {
+import static uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig.getCriType;
 
-    private static final String JWT_CONTENT_TYPE = "application/jwt;charset=UTF-8";
+public class CredentialHandler {
 
     private final CredentialService credentialService;
     private final TokenService tokenService;
@@ -39,7 +41,10 @@ public class CredentialHandler {
 
         String accessTokenValue = BearerAccessToken.parse(accessTokenString).getValue();
         UserInfoErrorResponse requestedUserInfoErrorResponse =
-                requestedErrorResponseService.getUserInfoErrorByToken(accessTokenValue);
+                tokenService.isStateless()
+                        ? requestedErrorResponseService.getUserInfoErrorResponse(
+                                tokenService.getRequestedCredentialError(accessTokenString))
+                        : requestedErrorResponseService.getUserInfoErrorByToken(accessTokenValue);
         if (requestedUserInfoErrorResponse != null) {
             ctx.status(requestedUserInfoErrorResponse.getErrorObject().getHTTPStatusCode());
             ctx.json(requestedUserInfoErrorResponse.getErrorObject().toJSONObject());
@@ -47,16 +52,24 @@ public class CredentialHandler {
         }
 
         String resourceId = tokenService.getPayload(accessTokenString);
-        String verifiableCredential = credentialService.getCredentialSignedJwt(resourceId);
+        // Stateless tokens carry the signed VC as their payload, so only those are rendered here
+        StoredCredential credential =
+                tokenService.isStateless()
+                        ? StoredCredential.render(getCriType(), SignedJWT.parse(resourceId))
+                        : credentialService.getCredential(resourceId);
 
         tokenService.revoke(accessTokenString);
 
-        sendResponse(ctx, verifiableCredential);
-    }
+        // The credential store is size capped, so a valid token can outlive its credential
+        if (credential == null) {
+            BearerTokenError error =
+                    BearerTokenError.INVALID_TOKEN.setDescription(
+                            "No credential found for the access token");
+            ctx.status(error.getHTTPStatusCode());
+            ctx.json(error.toJSONObject());
+            return;
+        }
 
-    protected void sendResponse(Context ctx, String verifiableCredential) throws Exception {
-        ctx.contentType(JWT_CONTENT_TYPE);
-        ctx.status(HttpStatus.CREATED);
-        ctx.result(verifiableCredential);
+        credential.send(ctx);
     }
 }
@@ -0,0 +1,41 @@
+package uk.gov.di.ipv.stub.cred.handlers;
+
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.service.CriStubDataService;
+import uk.gov.di.ipv.stub.cred.service.CriStubDataService.StubPayload;
+
+public class CriStubDataHandler {
+    // Let browsers keep a copy but revalidate it, so a redeployed stub never serves stale data
+    private static final String CACHE_CONTROL = "no-cache";
+
+    private final CriStubDataService criStubDataService;
+
+    public CriStubDataHandler(CriStubDataService criStubDataService) {
+        this.criStubDataService = criStubDataService;
+    }
+
+    public void getCriStubData(Context ctx) {
+        respond(ctx, criStubDataService.getCriStubData(CredentialIssuerConfig.getName()));
+    }
+
+    public void getCriStubEvidencePayloads(Context ctx) {
+        respond(
+                ctx,
+                criStubDataService.getCriStubEvidencePayloads(CredentialIssuerConfig.getName()));
+    }
+
+    private void respond(Context ctx, StubPayload payload) {
+        ctx.header(Header.ETAG, payload.etag());
+        ctx.header(Header.CACHE_CONTROL, CACHE_CONTROL);
+        if (payload.matches(ctx.header(Header.IF_NONE_MATCH))) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        ctx.result(payload.body());
+    }
+}
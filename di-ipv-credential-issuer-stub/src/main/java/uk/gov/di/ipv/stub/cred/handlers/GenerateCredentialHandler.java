@@ -1,16 +1,34 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.nimbusds.jwt.SignedJWT;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 import io.javalin.http.UnauthorizedResponse;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 import uk.gov.di.ipv.stub.cred.domain.Credential;
 import uk.gov.di.ipv.stub.cred.domain.GenerateCredentialRequest;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
 import uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialGenerator;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
 
@@ -22,31 +40,151 @@ public class GenerateCredentialHandler {
     private static final TypeReference<Map<String, Object>> MAP_TYPE_REFERENCE =
             new TypeReference<>() {};
     private static final String API_KEY_HEADER = "x-api-key";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String MAX_BATCH_SIZE_ENV_VAR = "GENERATE_CREDENTIAL_BATCH_MAX_SIZE";
+    private static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+    private static final int SIGNING_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int SIGNING_WINDOW = SIGNING_THREADS * 4;
+    private static final ObjectReader BATCH_REQUEST_READER =
+            new ObjectMapper().readerFor(GenerateCredentialRequest.class);
+    private static final ObjectWriter BATCH_RESULT_WRITER = new ObjectMapper().writer();
+    private static final ExecutorService SIGNING_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    SIGNING_THREADS,
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "vc-batch-signer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
 
     private final VerifiableCredentialGenerator verifiableCredentialGenerator;
+    private final int maxBatchSize;
 
     public GenerateCredentialHandler(VerifiableCredentialGenerator verifiableCredentialGenerator) {
         this.verifiableCredentialGenerator = verifiableCredentialGenerator;
+        this.maxBatchSize = getMaxBatchSize();
     }
 
     public void generateCredential(Context ctx) throws Exception {
-        var apiKey = ConfigService.getApiKey();
-        if (apiKey != null && !apiKey.equals(ctx.header(API_KEY_HEADER))) {
-            throw new UnauthorizedResponse("Invalid or missing API key");
-        }
+        checkApiKey(ctx);
 
         var request = ctx.bodyAsClass(GenerateCredentialRequest.class);
-        var vc =
-                verifiableCredentialGenerator.generate(
-                        new Credential(
-                                OBJECT_MAPPER.readValue(
-                                        request.credentialSubjectJson(), MAP_TYPE_REFERENCE),
-                                OBJECT_MAPPER.readValue(request.evidenceJson(), MAP_TYPE_REFERENCE),
-                                request.userId(),
-                                request.clientId(),
-                                request.nbf()));
+        var vc = generate(request);
         ctx.contentType(JWT_CONTENT_TYPE);
         ctx.status(HttpStatus.CREATED);
         ctx.result(vc.serialize());
     }
+
+    // Accepts a JSON array or newline delimited stream of requests and writes one NDJSON line per
+    // request, in request order, as soon as that VC and all those before it are signed. At most
+    // SIGNING_WINDOW requests are read ahead of the output, so a slow reader holds back both
+    // signing and the reading of the request body.
+    public void generateCredentialBatch(Context ctx) throws Exception {
+        checkApiKey(ctx);
+
+        ctx.contentType(NDJSON_CONTENT_TYPE);
+        ctx.status(HttpStatus.OK);
+        OutputStream outputStream = ctx.outputStream();
+        Deque<Future<BatchResult>> inFlight = new ArrayDeque<>();
+        int index = 0;
+        try (MappingIterator<GenerateCredentialRequest> requests =
+                BATCH_REQUEST_READER.readValues(ctx.bodyInputStream())) {
+            while (requests.hasNextValue()) {
+                if (index >= maxBatchSize) {
+                    drain(inFlight, outputStream, 0);
+                    writeLine(
+                            outputStream,
+                            BatchResult.failure(
+                                    index,
+                                    String.format(
+                                            "Batch size limit of %d exceeded", maxBatchSize)));
+                    return;
+                }
+                GenerateCredentialRequest request = requests.nextValue();
+                int requestIndex = index++;
+                inFlight.add(
+                        SIGNING_EXECUTOR.submit(
+                                RequestMetrics.propagate(
+                                        CriContext.propagate(() -> sign(requestIndex, request)))));
+                drain(inFlight, outputStream, SIGNING_WINDOW);
+            }
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            drain(inFlight, outputStream, 0);
+            writeLine(
+                    outputStream,
+                    BatchResult.failure(index, "Unable to read request: " + e.getMessage()));
+            return;
+        }
+        drain(inFlight, outputStream, 0);
+    }
+
+    private BatchResult sign(int index, GenerateCredentialRequest request) {
+        try {
+            SignedJWT vc = generate(request);
+            return BatchResult.success(index, vc.serialize());
+        } catch (Exception e) {
+            return BatchResult.failure(index, e.getMessage());
+        }
+    }
+
+    private SignedJWT generate(GenerateCredentialRequest request) throws Exception {
+        return verifiableCredentialGenerator.generate(
+                toCredential(request), Boolean.TRUE.equals(request.uniqueJti()));
+    }
+
+    private static void drain(
+            Deque<Future<BatchResult>> inFlight, OutputStream outputStream, int keepInFlight)
+            throws IOException, InterruptedException {
+        while (inFlight.size() > keepInFlight || isHeadDone(inFlight)) {
+            try {
+                writeLine(outputStream, inFlight.removeFirst().get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static boolean isHeadDone(Deque<Future<BatchResult>> inFlight) {
+        return !inFlight.isEmpty() && inFlight.peekFirst().isDone();
+    }
+
+    private static void writeLine(OutputStream outputStream, BatchResult result)
+            throws IOException {
+        outputStream.write(BATCH_RESULT_WRITER.writeValueAsBytes(result));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+
+    private void checkApiKey(Context ctx) {
+        var apiKey = ConfigService.getApiKey();
+        if (apiKey != null && !apiKey.equals(ctx.header(API_KEY_HEADER))) {
+            throw new UnauthorizedResponse("Invalid or missing API key");
+        }
+    }
+
+    private static Credential toCredential(GenerateCredentialRequest request)
+            throws JsonProcessingException {
+        return new Credential(
+                OBJECT_MAPPER.readValue(request.credentialSubjectJson(), MAP_TYPE_REFERENCE),
+                OBJECT_MAPPER.readValue(request.evidenceJson(), MAP_TYPE_REFERENCE),
+                request.userId(),
+                request.clientId(),
+                request.nbf());
+    }
+
+    private static int getMaxBatchSize() {
+        String maxBatchSize = CredentialIssuerConfig.getConfigValue(MAX_BATCH_SIZE_ENV_VAR);
+        return maxBatchSize == null ? DEFAULT_MAX_BATCH_SIZE : Integer.parseInt(maxBatchSize);
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchResult(int index, String vc, String error) {
+        static BatchResult success(int index, String vc) {
+            return new BatchResult(index, vc, null);
+        }
+
+        static BatchResult failure(int index, String error) {
+            return new BatchResult(index, null, error);
+        }
+    }
 }
@@ -1,18 +1,13 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
-import com.nimbusds.jose.jwk.JWKSet;
 import io.javalin.http.Context;
-import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
-
-import java.util.List;
+import uk.gov.di.ipv.stub.cred.config.KeyRegistry;
 
 public class JwksHandler {
 
     public JwksHandler() {}
 
     public void getResource(Context ctx) throws Exception {
-        ctx.json(
-                new JWKSet(List.of(CredentialIssuerConfig.getPrivateEncryptionKey().toPublicJWK()))
-                        .toJSONObject(true));
+        ctx.json(KeyRegistry.getPublicJwks());
     }
 }
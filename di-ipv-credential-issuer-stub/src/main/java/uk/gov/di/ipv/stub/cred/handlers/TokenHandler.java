@@ -16,6 +16,7 @@ import uk.gov.di.ipv.stub.cred.error.ClientAuthenticationException;
 import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StatelessAuthCode;
 import uk.gov.di.ipv.stub.cred.service.TokenService;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 import uk.gov.di.ipv.stub.cred.validation.Validator;
@@ -49,15 +50,18 @@ public class TokenHandler {
     }
 
     public void issueAccessToken(Context ctx) {
+        String code = ctx.formParam(RequestParamConstants.AUTH_CODE);
+        // A stateless code is decrypted once here and passed to every lookup that follows
+        StatelessAuthCode statelessAuthCode = authCodeService.openStateless(code);
         TokenErrorResponse requestedTokenErrorResponse =
-                handleRequestedError(ctx.formParam(RequestParamConstants.AUTH_CODE));
+                handleRequestedError(code, statelessAuthCode);
         if (requestedTokenErrorResponse != null) {
             ctx.status(requestedTokenErrorResponse.getErrorObject().getHTTPStatusCode());
             ctx.json(requestedTokenErrorResponse.toJSONObject());
             return;
         }
 
-        ValidationResult validationResult = validator.validateTokenRequest(ctx);
+        ValidationResult validationResult = validator.validateTokenRequest(ctx, statelessAuthCode);
         if (!validationResult.isValid()) {
             TokenErrorResponse errorResponse = new TokenErrorResponse(validationResult.getError());
             ctx.status(validationResult.getError().getHTTPStatusCode());
@@ -91,10 +95,9 @@ public class TokenHandler {
             }
         }
 
-        String code = ctx.formParam(RequestParamConstants.AUTH_CODE);
         var redirectValidationResult =
                 validator.validateRedirectUrlsMatch(
-                        authCodeService.getRedirectUrl(code),
+                        authCodeService.getRedirectUrl(code, statelessAuthCode),
                         ctx.formParam(RequestParamConstants.REDIRECT_URI));
 
         if (!redirectValidationResult.isValid()) {
@@ -105,27 +108,39 @@ public class TokenHandler {
             return;
         }
 
-        AccessToken accessToken = tokenService.createBearerAccessToken();
+        String payloadAssociatedWithCode = authCodeService.getPayload(code, statelessAuthCode);
+        authCodeService.revoke(code, statelessAuthCode);
+
+        AccessToken accessToken;
+        if (tokenService.isStateless()) {
+            // The resource and any requested credential error travel inside the token itself
+            accessToken =
+                    tokenService.createStatelessAccessToken(
+                            payloadAssociatedWithCode,
+                            requestedErrorResponseService.getRequestedUserInfoError(
+                                    code, statelessAuthCode));
+        } else {
+            accessToken = tokenService.createBearerAccessToken();
+            tokenService.persist(accessToken, payloadAssociatedWithCode);
+
+            // We need to persist any requested errors against the generated access
+            // token so that it can be accessed at the credentials endpoint where
+            // the access token is available but not the auth code
+            requestedErrorResponseService.persistUserInfoErrorAgainstAccessToken(
+                    code, accessToken.toString());
+        }
         AccessTokenResponse tokenResponse =
                 new AccessTokenResponse(new Tokens(accessToken, new RefreshToken()));
 
-        String payloadAssociatedWithCode = authCodeService.getPayload(code);
-        authCodeService.revoke(code);
-        tokenService.persist(accessToken, payloadAssociatedWithCode);
-
-        // We need to persist any requested errors against the generated access
-        // token so that it can be accessed at the credentials endpoint where
-        // the access token is available but not the auth code
-        requestedErrorResponseService.persistUserInfoErrorAgainstAccessToken(
-                code, accessToken.toString());
-
         ctx.json(tokenResponse.toJSONObject());
     }
 
-    private TokenErrorResponse handleRequestedError(String authCode) {
+    private TokenErrorResponse handleRequestedError(
+            String authCode, StatelessAuthCode statelessAuthCode) {
         if (authCode == null) {
             return null;
         }
-        return requestedErrorResponseService.getRequestedAccessTokenErrorResponse(authCode);
+        return requestedErrorResponseService.getRequestedAccessTokenErrorResponse(
+                authCode, statelessAuthCode);
     }
 }
@@ -1,42 +1,94 @@
 package uk.gov.di.ipv.stub.cred.service;
 
 import com.nimbusds.oauth2.sdk.AuthorizationCode;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthCodeService {
     private static final String RESOURCE_PAYLOAD = "resourcePayload";
     public static final String REDIRECT_URL = "redirectUrl";
-    private final Map<String, Map<String, String>> authCodes;
+    private final ExpiringStore<String, Map<String, String>> authCodes;
+    private final SealedTokenCodec sealedTokenCodec;
+    // Stateless codes can't be deleted, so redeemed ones are remembered until they would expire
+    private final ExpiringStore<String, Boolean> redeemedStatelessCodes;
 
     public AuthCodeService() {
-        this.authCodes = new ConcurrentHashMap<>();
+        this(SealedTokenCodec.fromConfig());
+    }
+
+    AuthCodeService(SealedTokenCodec sealedTokenCodec) {
+        int maxEntries = CredentialIssuerConfig.getSessionStoreMaxEntries();
+        this.authCodes =
+                new ExpiringStore<>(
+                        "authCodes", CredentialIssuerConfig.getAuthCodeTtl(), maxEntries);
+        this.redeemedStatelessCodes =
+                new ExpiringStore<>(
+                        "redeemedStatelessAuthCodes",
+                        CredentialIssuerConfig.getAuthCodeTtl(),
+                        maxEntries);
+        this.sealedTokenCodec = sealedTokenCodec;
+    }
+
+    public boolean isStateless() {
+        return sealedTokenCodec != null;
     }
 
     public void persist(AuthorizationCode authCode, String resourcePayload, String redirectUrl) {
         this.authCodes.put(
-                authCode.getValue(),
+                CriContext.scoped(authCode.getValue()),
                 Map.of(RESOURCE_PAYLOAD, resourcePayload, REDIRECT_URL, redirectUrl));
     }
 
-    public String getPayload(String authCode) {
+    public AuthorizationCode createStatelessAuthCode(
+            String resourcePayload, String redirectUrl, Map<String, String> requestedError) {
+        return new AuthorizationCode(
+                StatelessAuthCode.create(resourcePayload, redirectUrl, requestedError)
+                        .seal(sealedTokenCodec, CredentialIssuerConfig.getAuthCodeTtl()));
+    }
+
+    // Decrypts a stateless code, which the token endpoint does once and passes to each lookup
+    // below. Returns null when codes are held in memory, or the code was not sealed by a stub
+    // sharing the key.
+    public StatelessAuthCode openStateless(String authCode) {
+        return isStateless() ? StatelessAuthCode.open(sealedTokenCodec, authCode) : null;
+    }
+
+    public String getPayload(String authCode, StatelessAuthCode statelessAuthCode) {
+        if (isStateless()) {
+            return isRedeemable(statelessAuthCode) ? statelessAuthCode.resourcePayload() : null;
+        }
         return getAuthCodesEntryAttribute(authCode, RESOURCE_PAYLOAD);
     }
 
-    public String getRedirectUrl(String authCode) {
+    public String getRedirectUrl(String authCode, StatelessAuthCode statelessAuthCode) {
+        if (isStateless()) {
+            return isRedeemable(statelessAuthCode) ? statelessAuthCode.redirectUrl() : null;
+        }
         return getAuthCodesEntryAttribute(authCode, REDIRECT_URL);
     }
 
     private String getAuthCodesEntryAttribute(String authCode, String attribute) {
-        Map<String, String> maybeAuthCodesEntry = this.authCodes.get(authCode);
+        Map<String, String> maybeAuthCodesEntry = this.authCodes.get(CriContext.scoped(authCode));
         if (!(maybeAuthCodesEntry == null)) {
             return maybeAuthCodesEntry.get(attribute);
         }
         return null;
     }
 
-    public void revoke(String authCode) {
-        this.authCodes.remove(authCode);
+    private boolean isRedeemable(StatelessAuthCode statelessAuthCode) {
+        return statelessAuthCode != null
+                && redeemedStatelessCodes.get(statelessAuthCode.id()) == null;
+    }
+
+    public void revoke(String authCode, StatelessAuthCode statelessAuthCode) {
+        if (isStateless()) {
+            if (statelessAuthCode != null) {
+                redeemedStatelessCodes.put(statelessAuthCode.id(), Boolean.TRUE);
+            }
+            return;
+        }
+        this.authCodes.remove(CriContext.scoped(authCode));
     }
 }
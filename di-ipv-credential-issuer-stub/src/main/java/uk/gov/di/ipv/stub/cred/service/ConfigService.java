@@ -9,12 +9,22 @@ import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
 import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
 import software.amazon.awssdk.services.ssm.model.Parameter;
 import uk.gov.di.ipv.stub.cred.config.ClientConfig;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriType;
 import uk.gov.di.ipv.stub.cred.utils.StubSsmClient;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ConfigService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigService.class);
@@ -26,68 +36,127 @@ public class ConfigService {
     private static final String ENVIRONMENT_ENV_VAR = "ENVIRONMENT";
     private static final String TEST = "TEST";
     private static final String CONFIG_CACHE_SECONDS_ENV_VAR = "CONFIG_CACHE_SECONDS";
-    private static Map<String, ClientConfig> CLIENT_CONFIGS;
-    private static Instant lastClientConfigRefresh = null;
-    private static String apiKey = null;
-    private static Instant lastApiKeyRefresh = null;
+    private static final AtomicReference<CompletableFuture<ClientConfigSnapshot>>
+            REFRESH_IN_FLIGHT = new AtomicReference<>();
+    private static final ExecutorService CONFIG_REFRESHER =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "client-config-refresher");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+    private static final ReentrantLock API_KEY_LOCK = new ReentrantLock();
+    private static volatile ClientConfigSnapshot clientConfigSnapshot;
+    private static volatile ApiKey apiKey;
 
     public static ClientConfig getClientConfig(String clientId) {
-        refreshClientConfigsIfRequired();
-
-        return CLIENT_CONFIGS.get(clientId);
+        return getClientConfigs().get(clientId);
     }
 
+    // Clients registered under <base path>/<CRI type>/ only exist for that CRI, and override a
+    // shared client with the same ID. Outside a CRI's routes that is the configured CRI type.
     public static Map<String, ClientConfig> getClientConfigs() {
-        refreshClientConfigsIfRequired();
-
-        return CLIENT_CONFIGS;
+        ClientConfigSnapshot snapshot = currentClientConfigs();
+        Map<String, ClientConfig> criClientConfigs =
+                snapshot.criClientConfigs().get(CredentialIssuerConfig.getCriType());
+        return criClientConfigs != null ? criClientConfigs : snapshot.clientConfigs();
     }
 
-    public static synchronized String getApiKey() {
-        if (lastApiKeyRefresh == null
-                || lastApiKeyRefresh.isBefore(
-                        Instant.now().minusSeconds(getCacheDurationSeconds()))) {
-            var request = GetParameterRequest.builder().name(API_KEY_PATH).build();
-            var response = SSM_CLIENT.getParameter(request);
-            apiKey = response.parameter().value();
-            lastApiKeyRefresh = Instant.now();
+    // A lock rather than synchronized, so a virtual thread waiting on SSM here does not pin its
+    // carrier thread
+    public static String getApiKey() {
+        ApiKey current = apiKey;
+        if (current != null && !current.isStale(Instant.now())) {
+            return current.value();
+        }
+        API_KEY_LOCK.lock();
+        try {
+            current = apiKey;
+            if (current == null || current.isStale(Instant.now())) {
+                var request = GetParameterRequest.builder().name(API_KEY_PATH).build();
+                var response = SSM_CLIENT.getParameter(request);
+                current =
+                        new ApiKey(
+                                response.parameter().value(),
+                                Instant.now().plusSeconds(getCacheDurationSeconds()));
+                apiKey = current;
+            }
+            return current.value();
+        } finally {
+            API_KEY_LOCK.unlock();
         }
-        return apiKey;
     }
 
-    private static synchronized void refreshClientConfigsIfRequired() {
-        if (lastClientConfigRefresh == null
-                || lastClientConfigRefresh.isBefore(
-                        Instant.now().minusSeconds(getCacheDurationSeconds()))) {
-            LOGGER.info("Refreshing client configs");
-            getAllClientConfigs(null);
-            lastClientConfigRefresh = Instant.now();
+    // Only the first read waits for SSM. After that a stale snapshot is served while a single
+    // background refresh fetches its replacement.
+    private static ClientConfigSnapshot currentClientConfigs() {
+        ClientConfigSnapshot snapshot = clientConfigSnapshot;
+        if (snapshot == null) {
+            return refreshClientConfigs().join();
+        }
+        if (snapshot.isStale(Instant.now())) {
+            refreshClientConfigs();
         }
+        return snapshot;
     }
 
-    private static void getAllClientConfigs(String nextToken) {
-        GetParametersByPathRequest.Builder requestBuilder =
-                GetParametersByPathRequest.builder().path(CLIENT_CONFIG_BASE_PATH).recursive(true);
-        if (nextToken != null) {
-            requestBuilder.nextToken(nextToken);
+    static CompletableFuture<ClientConfigSnapshot> refreshClientConfigs() {
+        while (true) {
+            CompletableFuture<ClientConfigSnapshot> inFlight = REFRESH_IN_FLIGHT.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<ClientConfigSnapshot> refresh = new CompletableFuture<>();
+            if (REFRESH_IN_FLIGHT.compareAndSet(null, refresh)) {
+                CONFIG_REFRESHER.execute(() -> runRefresh(refresh));
+                return refresh;
+            }
         }
+    }
 
-        GetParametersByPathResponse response =
-                SSM_CLIENT.getParametersByPath(requestBuilder.build());
+    static CompletableFuture<?> pendingRefresh() {
+        CompletableFuture<ClientConfigSnapshot> inFlight = REFRESH_IN_FLIGHT.get();
+        return inFlight == null ? CompletableFuture.completedFuture(null) : inFlight;
+    }
 
-        HashMap<String, ClientConfig> configs = new HashMap<>();
-        for (Parameter param : response.parameters()) {
-            String[] nameParts = param.name().split("/");
-            configs.put(
-                    nameParts[nameParts.length - 1],
-                    GSON.fromJson(param.value(), ClientConfig.class));
+    // The in-flight refresh is cleared before it completes, so anyone who sees it complete and
+    // finds the snapshot stale again can start the next one
+    private static void runRefresh(CompletableFuture<ClientConfigSnapshot> refresh) {
+        try {
+            LOGGER.info("Refreshing client configs");
+            ClientConfigSnapshot snapshot =
+                    ClientConfigSnapshot.of(
+                            getAllClientConfigParams(),
+                            Instant.now().plusSeconds(getCacheDurationSeconds()));
+            clientConfigSnapshot = snapshot;
+            REFRESH_IN_FLIGHT.set(null);
+            refresh.complete(snapshot);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to refresh client configs: {}", e.getMessage());
+            REFRESH_IN_FLIGHT.set(null);
+            refresh.completeExceptionally(e);
         }
-        CLIENT_CONFIGS = Collections.unmodifiableMap(configs);
+    }
 
-        if (response.nextToken() != null) {
-            LOGGER.info("Next token found - fetching more client configs");
-            getAllClientConfigs(response.nextToken());
-        }
+    private static List<Parameter> getAllClientConfigParams() {
+        List<Parameter> params = new ArrayList<>();
+        String nextToken = null;
+        do {
+            GetParametersByPathRequest.Builder requestBuilder =
+                    GetParametersByPathRequest.builder()
+                            .path(CLIENT_CONFIG_BASE_PATH)
+                            .recursive(true);
+            if (nextToken != null) {
+                LOGGER.info("Next token found - fetching more client configs");
+                requestBuilder.nextToken(nextToken);
+            }
+
+            GetParametersByPathResponse response =
+                    SSM_CLIENT.getParametersByPath(requestBuilder.build());
+            params.addAll(response.parameters());
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return params;
     }
 
     private static SsmClient getSsmClient() {
@@ -104,4 +173,53 @@ public class ConfigService {
                 ? DEFAULT_CONFIG_CACHE_SECONDS
                 : Long.parseLong(configCacheSeconds);
     }
+
+    // Each CRI with its own clients gets a merged map built once here, so that readers always see
+    // the same map instance until the next refresh
+    record ClientConfigSnapshot(
+            Map<String, ClientConfig> clientConfigs,
+            Map<CriType, Map<String, ClientConfig>> criClientConfigs,
+            Instant refreshAt) {
+        static ClientConfigSnapshot of(List<Parameter> params, Instant refreshAt) {
+            Map<String, ClientConfig> shared = new HashMap<>();
+            Map<CriType, Map<String, ClientConfig>> criSpecific = new EnumMap<>(CriType.class);
+            for (Parameter param : params) {
+                String[] nameParts = param.name().split("/");
+                String clientId = nameParts[nameParts.length - 1];
+                ClientConfig clientConfig = GSON.fromJson(param.value(), ClientConfig.class);
+                CriType criType =
+                        nameParts.length > 1
+                                ? CriType.fromValue(nameParts[nameParts.length - 2])
+                                : null;
+                if (criType == null) {
+                    shared.put(clientId, clientConfig);
+                } else {
+                    criSpecific
+                            .computeIfAbsent(criType, key -> new HashMap<>())
+                            .put(clientId, clientConfig);
+                }
+            }
+            Map<CriType, Map<String, ClientConfig>> merged = new EnumMap<>(CriType.class);
+            criSpecific.forEach(
+                    (criType, configs) -> {
+                        Map<String, ClientConfig> criConfigs = new HashMap<>(shared);
+                        criConfigs.putAll(configs);
+                        merged.put(criType, Collections.unmodifiableMap(criConfigs));
+                    });
+            return new ClientConfigSnapshot(
+                    Collections.unmodifiableMap(shared),
+                    Collections.unmodifiableMap(merged),
+                    refreshAt);
+        }
+
+        boolean isStale(Instant now) {
+            return !now.isBefore(refreshAt);
+        }
+    }
+
+    private record ApiKey(String value, Instant refreshAt) {
+        boolean isStale(Instant now) {
+            return !now.isBefore(refreshAt);
+        }
+    }
 }
@@ -1,17 +1,23 @@
 package uk.gov.di.ipv.stub.cred.service;
 
-import java.util.HashMap;
-import java.util.Map;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 
 public class CredentialService {
 
-    Map<String, String> credentials = new HashMap<>();
+    // A credential is fetched with an access token that is issued for an auth code, so it has to
+    // outlive both
+    private final ExpiringStore<String, StoredCredential> credentials =
+            new ExpiringStore<>(
+                    "credentials",
+                    CredentialIssuerConfig.getAuthCodeTtl().plus(TokenService.ACCESS_TOKEN_TTL),
+                    CredentialIssuerConfig.getSessionStoreMaxEntries());
 
-    public String getCredentialSignedJwt(String resourceId) {
-        return credentials.get(resourceId);
+    public StoredCredential getCredential(String resourceId) {
+        return credentials.get(CriContext.scoped(resourceId));
     }
 
-    public void persist(String signedJwt, String resourceId) {
-        credentials.put(resourceId, signedJwt);
+    public void persist(StoredCredential credential, String resourceId) {
+        credentials.put(CriContext.scoped(resourceId), credential);
     }
 }
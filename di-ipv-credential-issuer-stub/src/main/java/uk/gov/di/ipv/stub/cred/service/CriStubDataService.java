@@ -0,0 +1,115 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.nimbusds.jose.util.Base64URL;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataAddress;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataBav;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataClaimedIdentity;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataDcmaw;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataDrivingLicence;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataDwpKbv;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataExperianKbv;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataF2f;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataFraud;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataNino;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataOpenBanking;
+import uk.gov.di.ipv.stub.cred.data.CriStubDataUkPassport;
+import uk.gov.di.ipv.stub.cred.data.IdentityCheckSubjectCriStubData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The authorize page's dropdown fixtures never change for a given stub, so they are serialised
+// once per stub name and served as compact JSON bytes with an ETag.
+public class CriStubDataService {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String EVIDENCE_PAYLOADS_RESOURCE = "/data/criStubEvidencePayloads.json";
+
+    private final Map<String, StubPayload> criStubData = new ConcurrentHashMap<>();
+    private final Map<String, StubPayload> criStubEvidencePayloads = new ConcurrentHashMap<>();
+
+    public StubPayload getCriStubData(String stubName) {
+        return criStubData.computeIfAbsent(
+                stubName, name -> StubPayload.of(serialise(getFixtures(name))));
+    }
+
+    public StubPayload getCriStubEvidencePayloads(String stubName) {
+        return criStubEvidencePayloads.computeIfAbsent(
+                stubName, name -> StubPayload.of(serialise(getEvidencePayloads(name))));
+    }
+
+    private static List<IdentityCheckSubjectCriStubData> getFixtures(String stubName) {
+        return switch (stubName) {
+            case "Address (Stub)" -> CriStubDataAddress.Data;
+            case "Bank account verification (Stub)" -> CriStubDataBav.Data;
+            case "Claimed Identity (Stub)" -> CriStubDataClaimedIdentity.Data;
+            case "DOC Checking App (Stub)" -> CriStubDataDcmaw.getData();
+            case "DWP KBV (Stub)" -> CriStubDataDwpKbv.Data;
+            case "Driving Licence (Stub)" -> CriStubDataDrivingLicence.getData();
+            case "Experian Knowledge Based Verification (Stub)" -> CriStubDataExperianKbv.Data;
+            case "Face to Face Check (Stub)" -> CriStubDataF2f.getData();
+            case "Fraud Check (Stub)" -> CriStubDataFraud.Data;
+            case "National Insurance Number (Stub)" -> CriStubDataNino.Data;
+            case "Open Banking (Stub)" -> CriStubDataOpenBanking.Data;
+            case "UK Passport (Stub)" -> CriStubDataUkPassport.Data;
+            default -> throw new IllegalArgumentException("Unrecognised stub type: " + stubName);
+        };
+    }
+
+    private static ArrayNode getEvidencePayloads(String stubName) {
+        ArrayNode payloads = OBJECT_MAPPER.createArrayNode();
+        try (InputStream inputStream =
+                CriStubDataService.class.getResourceAsStream(EVIDENCE_PAYLOADS_RESOURCE)) {
+            for (JsonNode payload : OBJECT_MAPPER.readTree(inputStream).get("data")) {
+                if (stubName.equals(payload.path("criType").asText())) {
+                    payloads.add(payload);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return payloads;
+    }
+
+    private static byte[] serialise(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record StubPayload(byte[] body, String etag) {
+        static StubPayload of(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return new StubPayload(
+                        body, "\"" + Base64URL.encode(Arrays.copyOf(digest, 16)) + "\"");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+// Takes the F2F queue and CIMIT stub posts off the authorize request thread. Messages are held in
+// a bounded queue and sent with sendAsync by a single worker, which stops taking messages while
+// DISPATCH_OUTBOX_MAX_IN_FLIGHT sends are outstanding, so a slow downstream fills the queue rather
+// than piling up requests. Once the queue is full callers send synchronously. Failed sends go back
+// on the queue after an exponential backoff. Queue depth, outcomes and the time from queueing to
+// delivery are published on /metrics, labelled with the outbox instance.
+public class DispatchOutbox {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchOutbox.class);
+    private static final int DEFAULT_CAPACITY = 1000;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 50;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = 200;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final HttpClient httpClient;
+    private final BlockingQueue<Message> queue;
+    private final Semaphore inFlight;
+    private final boolean startWorker;
+    private final String metricLabels;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ScheduledExecutorService retryScheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> daemonThread(runnable, "dispatch-outbox-retry"));
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final LongConsumer deliveryLatency;
+
+    public DispatchOutbox(HttpClient httpClient) {
+        this(
+                httpClient,
+                getConfiguredSize("DISPATCH_OUTBOX_CAPACITY", DEFAULT_CAPACITY),
+                getConfiguredSize("DISPATCH_OUTBOX_MAX_IN_FLIGHT", DEFAULT_MAX_IN_FLIGHT),
+                true);
+    }
+
+    DispatchOutbox(HttpClient httpClient, int capacity, int maxInFlight, boolean startWorker) {
+        this.httpClient = httpClient;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.startWorker = startWorker;
+        this.metricLabels =
+                "outbox=\"dispatch\",instance=\"" + INSTANCES.incrementAndGet() + "\"";
+        RequestMetrics.registerGauge("stub_dispatch_outbox_depth", metricLabels, queue::size);
+        RequestMetrics.registerGauge(
+                "stub_dispatch_outbox_in_flight",
+                metricLabels,
+                () -> maxInFlight - inFlight.availablePermits());
+        registerCount("enqueued", enqueued);
+        registerCount("delivered", delivered);
+        registerCount("failed", failed);
+        registerCount("retried", retried);
+        this.deliveryLatency =
+                RequestMetrics.registerLatency(
+                        "stub_dispatch_outbox_delivery_seconds", metricLabels);
+    }
+
+    // Returns false when the outbox is full, leaving the caller to send the request itself
+    public boolean offer(HttpRequest request, String description) {
+        if (startWorker && started.compareAndSet(false, true)) {
+            daemonThread(this::run, "dispatch-outbox").start();
+        }
+        boolean accepted = queue.offer(new Message(request, description, System.nanoTime(), 1));
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else {
+            LOGGER.warn("Dispatch outbox full, unable to queue {}", description);
+        }
+        return accepted;
+    }
+
+    String metricLabels() {
+        return metricLabels;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                inFlight.acquire();
+                dispatch(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Sends queued messages until the queue is empty or the in flight limit is reached, in place of
+    // the worker
+    void dispatchQueued() {
+        while (inFlight.tryAcquire()) {
+            Message message = queue.poll();
+            if (message == null) {
+                inFlight.release();
+                return;
+            }
+            dispatch(message);
+        }
+    }
+
+    // Called holding an in flight permit, which is released once the send completes
+    private void dispatch(Message message) {
+        httpClient
+                .sendAsync(message.request(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete(
+                        (response, error) -> {
+                            inFlight.release();
+                            if (error == null
+                                    && response.statusCode() >= 200
+                                    && response.statusCode() < 300) {
+                                recordDelivery(message);
+                                return;
+                            }
+                            String reason =
+                                    error == null
+                                            ? "status code " + response.statusCode()
+                                            : error.getMessage();
+                            retryOrFail(message, reason);
+                        });
+    }
+
+    private void retryOrFail(Message message, String reason) {
+        if (message.attempt() >= MAX_ATTEMPTS) {
+            failed.incrementAndGet();
+            LOGGER.error(
+                    "Failed to send {} after {} attempts: {}",
+                    message.description(),
+                    message.attempt(),
+                    reason);
+            return;
+        }
+        long backoffMillis = INITIAL_BACKOFF_MILLIS << (message.attempt() - 1);
+        LOGGER.warn(
+                "Failed to send {}, retrying in {}ms: {}",
+                message.description(),
+                backoffMillis,
+                reason);
+        retried.incrementAndGet();
+        retryScheduler.schedule(
+                () -> requeue(message.nextAttempt()), backoffMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void requeue(Message message) {
+        if (!queue.offer(message)) {
+            failed.incrementAndGet();
+            LOGGER.error("Dispatch outbox full, dropping retry of {}", message.description());
+        }
+    }
+
+    private void recordDelivery(Message message) {
+        delivered.incrementAndGet();
+        deliveryLatency.accept(System.nanoTime() - message.enqueuedAtNanos());
+    }
+
+    private void registerCount(String result, AtomicLong count) {
+        RequestMetrics.registerCounter(
+                "stub_dispatch_outbox_messages_total",
+                metricLabels + ",result=\"" + result + "\"",
+                count::get);
+    }
+
+    private static Thread daemonThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static int getConfiguredSize(String envVar, int defaultSize) {
+        String size = CredentialIssuerConfig.getConfigValue(envVar);
+        return size == null ? defaultSize : Integer.parseInt(size);
+    }
+
+    record Message(HttpRequest request, String description, long enqueuedAtNanos, int attempt) {
+        Message nextAttempt() {
+            return new Message(request, description, enqueuedAtNanos, attempt + 1);
+        }
+    }
+}
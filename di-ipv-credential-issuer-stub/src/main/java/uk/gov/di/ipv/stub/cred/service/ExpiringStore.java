@@ -0,0 +1,91 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Every entry in a store shares the same TTL, so insertion order is also expiry order. Expired
+// entries are purged from the head on each write and the oldest entry is evicted once the store
+// is full, which keeps both at amortised O(1) per operation. Each store's size and expiry and
+// eviction counts are published on /metrics under its name.
+public class ExpiringStore<K, V> {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>();
+    private long expiredCount;
+    private long evictedCount;
+
+    public ExpiringStore(String name, Duration ttl, int maxEntries) {
+        this(name, ttl, maxEntries, Clock.systemUTC());
+    }
+
+    public ExpiringStore(String name, Duration ttl, int maxEntries, Clock clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        String labels = "store=\"" + name + "\"";
+        RequestMetrics.registerGauge("stub_store_entries", labels, () -> getStats().size());
+        RequestMetrics.registerCounter(
+                "stub_store_expired_total", labels, () -> getStats().expired());
+        RequestMetrics.registerCounter(
+                "stub_store_evicted_total", labels, () -> getStats().evicted());
+    }
+
+    public synchronized void put(K key, V value) {
+        Instant now = clock.instant();
+        entries.remove(key);
+        entries.put(key, new Entry<>(value, now.plus(ttl)));
+        purge(now);
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpiredAt(clock.instant())) {
+            entries.remove(key);
+            expiredCount++;
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), expiredCount, evictedCount);
+    }
+
+    private void purge(Instant now) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> eldest = iterator.next();
+            if (eldest.isExpiredAt(now)) {
+                expiredCount++;
+            } else if (entries.size() > maxEntries) {
+                evictedCount++;
+            } else {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    public record Stats(int size, long expired, long evicted) {}
+
+    private record Entry<V>(V value, Instant expiresAt) {
+        boolean isExpiredAt(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
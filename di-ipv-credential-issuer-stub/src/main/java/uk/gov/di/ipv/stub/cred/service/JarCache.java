@@ -0,0 +1,126 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import uk.gov.di.ipv.stub.cred.auth.ClientVerifierRegistry.ClientKey;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.KeyRegistry;
+import uk.gov.di.ipv.stub.cred.utils.ES256SignatureVerifier;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics.Phase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decrypting the request JAR is an RSA private key operation and a single journey needs the
+// decrypted JAR several times (GET /authorize validation, rendering, error redirects, POST
+// /authorize). Entries are keyed by a digest of the compact JWE and evicted least recently used.
+public class JarCache {
+    private static final String MAX_ENTRIES_ENV_VAR = "JAR_CACHE_MAX_ENTRIES";
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Map<String, DecryptedJar> jars;
+
+    public JarCache() {
+        this(getMaxEntries());
+    }
+
+    public JarCache(int maxEntries) {
+        this.jars =
+                Collections.synchronizedMap(
+                        new LinkedHashMap<>(16, 0.75f, true) {
+                            @Override
+                            protected boolean removeEldestEntry(
+                                    Map.Entry<String, DecryptedJar> eldest) {
+                                return size() > maxEntries;
+                            }
+                        });
+    }
+
+    public DecryptedJar get(String request) throws ParseException, JOSEException {
+        String key = digest(request);
+        DecryptedJar jar = jars.get(key);
+        if (jar == null) {
+            jar = new DecryptedJar(getSignedJWT(request));
+            jars.put(key, jar);
+        }
+        return jar;
+    }
+
+    public int size() {
+        return jars.size();
+    }
+
+    private SignedJWT getSignedJWT(String request) throws ParseException, JOSEException {
+        JWEDecrypter decrypter = KeyRegistry.getDecrypter();
+        long start = RequestMetrics.startPhase();
+        try {
+            JWEObject jweObject = JWEObject.parse(request);
+            jweObject.decrypt(decrypter);
+            return jweObject.getPayload().toSignedJWT();
+        } catch (ParseException | JOSEException e) {
+            return SignedJWT.parse(request);
+        } finally {
+            RequestMetrics.endPhase(Phase.JAR_DECRYPT, start);
+        }
+    }
+
+    private static String digest(String request) {
+        try {
+            return Base64URL.encode(
+                            MessageDigest.getInstance(DIGEST_ALGORITHM)
+                                    .digest(request.getBytes(StandardCharsets.UTF_8)))
+                    .toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int getMaxEntries() {
+        String maxEntries = CredentialIssuerConfig.getConfigValue(MAX_ENTRIES_ENV_VAR);
+        return maxEntries == null ? DEFAULT_MAX_ENTRIES : Integer.parseInt(maxEntries);
+    }
+
+    public static class DecryptedJar {
+        private final SignedJWT signedJWT;
+        private final JWTClaimsSet claimsSet;
+        private final Map<String, Boolean> verificationResults = new ConcurrentHashMap<>();
+
+        DecryptedJar(SignedJWT signedJWT) throws ParseException {
+            this.signedJWT = signedJWT;
+            this.claimsSet = signedJWT.getJWTClaimsSet();
+        }
+
+        public SignedJWT getSignedJWT() {
+            return signedJWT;
+        }
+
+        public JWTClaimsSet getClaimsSet() {
+            return claimsSet;
+        }
+
+        public boolean isSignatureValid(
+                ClientKey clientKey, ES256SignatureVerifier es256SignatureVerifier)
+                throws JOSEException {
+            Boolean valid = verificationResults.get(clientKey.thumbprint());
+            if (valid == null) {
+                long start = RequestMetrics.startPhase();
+                valid = es256SignatureVerifier.valid(signedJWT, clientKey.verifier());
+                RequestMetrics.endPhase(Phase.SIGNATURE_VERIFY, start);
+                verificationResults.put(clientKey.thumbprint(), valid);
+            }
+            return valid;
+        }
+    }
+}
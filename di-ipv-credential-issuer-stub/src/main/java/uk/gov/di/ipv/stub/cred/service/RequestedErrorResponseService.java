@@ -1,10 +1,6 @@
 package uk.gov.di.ipv.stub.cred.service;
 
-import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JWEObject;
-import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.AuthorizationErrorResponse;
 import com.nimbusds.oauth2.sdk.ErrorObject;
 import com.nimbusds.oauth2.sdk.ResponseMode;
@@ -12,18 +8,14 @@ import com.nimbusds.oauth2.sdk.TokenErrorResponse;
 import com.nimbusds.oauth2.sdk.id.Issuer;
 import com.nimbusds.oauth2.sdk.id.State;
 import com.nimbusds.openid.connect.sdk.UserInfoErrorResponse;
-import uk.gov.di.ipv.stub.cred.config.ClientConfig;
 import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
 import uk.gov.di.ipv.stub.cred.domain.AuthRequest;
 import uk.gov.di.ipv.stub.cred.domain.RequestedError;
 import uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants;
 
 import java.net.URI;
-import java.security.PrivateKey;
-import java.text.ParseException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class RequestedErrorResponseService {
     private static final String AUTH = "auth";
@@ -31,16 +23,38 @@ public class RequestedErrorResponseService {
     private static final String CREDENTIAL = "credential";
     private static final String NONE = "none";
 
-    private final Map<String, Map<String, String>> errorResponsesRequested;
+    private final ExpiringStore<String, Map<String, String>> errorResponsesRequested;
+    private final ExpiringStore<String, Map<String, String>> userInfoErrorResponsesRequested;
+    private final SealedTokenCodec sealedTokenCodec;
 
     public RequestedErrorResponseService() {
-        this.errorResponsesRequested = new ConcurrentHashMap<>();
+        this(SealedTokenCodec.fromConfig());
+    }
+
+    RequestedErrorResponseService(SealedTokenCodec sealedTokenCodec) {
+        this.sealedTokenCodec = sealedTokenCodec;
+        int maxEntries = CredentialIssuerConfig.getSessionStoreMaxEntries();
+        this.errorResponsesRequested =
+                new ExpiringStore<>(
+                        "requestedErrorsByAuthCode",
+                        CredentialIssuerConfig.getAuthCodeTtl(),
+                        maxEntries);
+        this.userInfoErrorResponsesRequested =
+                new ExpiringStore<>(
+                        "requestedErrorsByAccessToken", TokenService.ACCESS_TOKEN_TTL, maxEntries);
     }
 
     public void persist(String authCode, RequestedError requestedError) {
         if (requestedError == null) {
             return;
         }
+        errorResponsesRequested.put(authCode, toParamsValuesMap(requestedError));
+    }
+
+    public static Map<String, String> toParamsValuesMap(RequestedError requestedError) {
+        if (requestedError == null) {
+            return null;
+        }
         Map<String, String> paramsValuesMap = new HashMap<>();
         paramsValuesMap.put(RequestParamConstants.REQUESTED_OAUTH_ERROR, requestedError.error());
         paramsValuesMap.put(
@@ -49,25 +63,25 @@ public class RequestedErrorResponseService {
                 RequestParamConstants.REQUESTED_OAUTH_ERROR_DESCRIPTION,
                 requestedError.description());
         paramsValuesMap.put(RequestParamConstants.REQUESTED_API_ERROR, requestedError.apiError());
+        return paramsValuesMap;
+    }
 
-        errorResponsesRequested.put(authCode, paramsValuesMap);
+    // Stateless auth codes carry the requested error themselves, and are passed in already opened
+    private Map<String, String> getRequestedErrorByAuthCode(
+            String authCode, StatelessAuthCode statelessAuthCode) {
+        if (sealedTokenCodec != null) {
+            return statelessAuthCode == null ? null : statelessAuthCode.requestedError();
+        }
+        return errorResponsesRequested.get(authCode);
     }
 
-    public AuthorizationErrorResponse getRequestedAuthErrorResponse(AuthRequest authRequest)
-            throws ParseException, JOSEException {
+    public AuthorizationErrorResponse getRequestedAuthErrorResponse(
+            AuthRequest authRequest, JWTClaimsSet jwtClaimsSet) {
         var requestedError = authRequest.requestedError();
         if (requestedError == null) {
             return null;
         }
         if (AUTH.equals(requestedError.endpoint()) && !NONE.equals(requestedError.error())) {
-            ClientConfig clientConfig = ConfigService.getClientConfig(authRequest.clientId());
-
-            JWTClaimsSet jwtClaimsSet =
-                    getSignedJWT(
-                                    authRequest.request(),
-                                    CredentialIssuerConfig.getPrivateEncryptionKey().toPrivateKey())
-                            .getJWTClaimsSet();
-
             String redirectUri =
                     jwtClaimsSet.getClaim(RequestParamConstants.REDIRECT_URI).toString();
             String state = jwtClaimsSet.getClaim(RequestParamConstants.STATE).toString();
@@ -82,8 +96,10 @@ public class RequestedErrorResponseService {
         return null;
     }
 
-    public TokenErrorResponse getRequestedAccessTokenErrorResponse(String authCode) {
-        Map<String, String> requestedErrorResponse = errorResponsesRequested.get(authCode);
+    public TokenErrorResponse getRequestedAccessTokenErrorResponse(
+            String authCode, StatelessAuthCode statelessAuthCode) {
+        Map<String, String> requestedErrorResponse =
+                getRequestedErrorByAuthCode(authCode, statelessAuthCode);
         if (requestedErrorResponse != null) {
             String error = requestedErrorResponse.get(RequestParamConstants.REQUESTED_API_ERROR);
             String endpoint =
@@ -113,44 +129,46 @@ public class RequestedErrorResponseService {
                 Map<String, String> paramsValuesMap = new HashMap<>();
                 paramsValuesMap.put(RequestParamConstants.REQUESTED_API_ERROR, error);
                 paramsValuesMap.put(RequestParamConstants.REQUESTED_OAUTH_ERROR_ENDPOINT, endpoint);
-                errorResponsesRequested.put(accessToken, paramsValuesMap);
+                userInfoErrorResponsesRequested.put(accessToken, paramsValuesMap);
             }
         }
     }
 
+    public String getRequestedUserInfoError(String authCode, StatelessAuthCode statelessAuthCode) {
+        Map<String, String> requestedErrorResponse =
+                getRequestedErrorByAuthCode(authCode, statelessAuthCode);
+        if (requestedErrorResponse != null
+                && CREDENTIAL.equals(
+                        requestedErrorResponse.get(
+                                RequestParamConstants.REQUESTED_OAUTH_ERROR_ENDPOINT))) {
+            return requestedErrorResponse.get(RequestParamConstants.REQUESTED_API_ERROR);
+        }
+        return null;
+    }
+
     public UserInfoErrorResponse getUserInfoErrorByToken(String accessToken) {
-        Map<String, String> requestedErrorResponse = errorResponsesRequested.get(accessToken);
+        Map<String, String> requestedErrorResponse =
+                userInfoErrorResponsesRequested.get(accessToken);
         if (requestedErrorResponse != null) {
             String error = requestedErrorResponse.get(RequestParamConstants.REQUESTED_API_ERROR);
             String endpoint =
                     requestedErrorResponse.get(
                             RequestParamConstants.REQUESTED_OAUTH_ERROR_ENDPOINT);
-            if (error != null && CREDENTIAL.equals(endpoint)) {
-                return new UserInfoErrorResponse(
-                        new ErrorObject(
-                                error,
-                                String.format("UserInfo endpoint %s triggered by stub", error),
-                                Integer.parseInt(error)));
+            if (CREDENTIAL.equals(endpoint)) {
+                return getUserInfoErrorResponse(error);
             }
         }
         return null;
     }
 
-    private SignedJWT getSignedJWT(String request, PrivateKey encryptionPrivateKey)
-            throws ParseException {
-        try {
-            JWEObject jweObject = getJweObject(request, encryptionPrivateKey);
-            return jweObject.getPayload().toSignedJWT();
-        } catch (ParseException | JOSEException e) {
-            return SignedJWT.parse(request);
+    public UserInfoErrorResponse getUserInfoErrorResponse(String error) {
+        if (error == null) {
+            return null;
         }
-    }
-
-    private JWEObject getJweObject(String requestParam, PrivateKey encryptionPrivateKey)
-            throws ParseException, JOSEException {
-        JWEObject encryptedJweObject = JWEObject.parse(requestParam);
-        RSADecrypter rsaDecrypter = new RSADecrypter(encryptionPrivateKey);
-        encryptedJweObject.decrypt(rsaDecrypter);
-        return encryptedJweObject;
+        return new UserInfoErrorResponse(
+                new ErrorObject(
+                        error,
+                        String.format("UserInfo endpoint %s triggered by stub", error),
+                        Integer.parseInt(error)));
     }
 }
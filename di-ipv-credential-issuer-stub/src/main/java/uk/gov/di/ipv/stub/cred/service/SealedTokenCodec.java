@@ -0,0 +1,91 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jose.CompressionAlgorithm;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+import com.nimbusds.jwt.EncryptedJWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Date;
+
+// Seals claims into a compact JWE using a shared AES-256-GCM key, so any stub instance configured
+// with the same key can open and trust tokens minted by another. GCM authenticates the payload,
+// which makes tampered or foreign tokens fail to open. Each token names the CRI it was sealed as
+// and only opens as that CRI. Payloads are deflated first as auth codes carry a whole signed VC.
+public class SealedTokenCodec {
+    static final String TOKEN_USE_CLAIM = "token_use";
+    static final String CRI_CLAIM = "cri";
+    private static final JWEHeader HEADER =
+            new JWEHeader.Builder(JWEAlgorithm.DIR, EncryptionMethod.A256GCM)
+                    .compressionAlgorithm(CompressionAlgorithm.DEF)
+                    .build();
+
+    private final DirectEncrypter encrypter;
+    private final DirectDecrypter decrypter;
+
+    public SealedTokenCodec(byte[] key) throws JOSEException {
+        this.encrypter = new DirectEncrypter(key);
+        this.decrypter = new DirectDecrypter(key);
+    }
+
+    // Returns null when STATELESS_TOKEN_KEY is not set, which keeps the in-memory session stores
+    public static SealedTokenCodec fromConfig() {
+        String key = CredentialIssuerConfig.getStatelessTokenKey();
+        if (key == null) {
+            return null;
+        }
+        try {
+            return new SealedTokenCodec(Base64.getDecoder().decode(key));
+        } catch (JOSEException e) {
+            throw new IllegalStateException("STATELESS_TOKEN_KEY must be a 256 bit AES key", e);
+        }
+    }
+
+    public String seal(String tokenUse, JWTClaimsSet claimsSet) {
+        EncryptedJWT jwt =
+                new EncryptedJWT(
+                        HEADER,
+                        new JWTClaimsSet.Builder(claimsSet)
+                                .claim(TOKEN_USE_CLAIM, tokenUse)
+                                .claim(CRI_CLAIM, CredentialIssuerConfig.getCriType().value)
+                                .build());
+        try {
+            jwt.encrypt(encrypter);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unable to seal token", e);
+        }
+        return jwt.serialize();
+    }
+
+    // Returns null if the token cannot be decrypted, was sealed for another use or CRI, or has
+    // expired
+    public JWTClaimsSet unseal(String tokenUse, String token) {
+        try {
+            EncryptedJWT jwt = EncryptedJWT.parse(token);
+            if (!HEADER.getAlgorithm().equals(jwt.getHeader().getAlgorithm())) {
+                return null;
+            }
+            jwt.decrypt(decrypter);
+            JWTClaimsSet claimsSet = jwt.getJWTClaimsSet();
+            String cri = CredentialIssuerConfig.getCriType().value;
+            if (!tokenUse.equals(claimsSet.getStringClaim(TOKEN_USE_CLAIM))
+                    || !cri.equals(claimsSet.getStringClaim(CRI_CLAIM))) {
+                return null;
+            }
+            Date expirationTime = claimsSet.getExpirationTime();
+            if (expirationTime == null || !expirationTime.after(new Date())) {
+                return null;
+            }
+            return claimsSet;
+        } catch (ParseException | JOSEException e) {
+            return null;
+        }
+    }
+}
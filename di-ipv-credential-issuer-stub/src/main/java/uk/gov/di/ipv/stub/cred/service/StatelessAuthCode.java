@@ -0,0 +1,73 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Everything the token and credential endpoints need from an authorize request, sealed into the
+// authorization code so that any stub instance sharing the key can redeem it
+public record StatelessAuthCode(
+        String id,
+        String resourcePayload,
+        String redirectUrl,
+        Map<String, String> requestedError) {
+    private static final String TOKEN_USE = "authorization_code";
+    private static final String RESOURCE_PAYLOAD_CLAIM = "resource_payload";
+    private static final String REDIRECT_URL_CLAIM = "redirect_uri";
+    private static final String REQUESTED_ERROR_CLAIM = "requested_error";
+
+    public static StatelessAuthCode create(
+            String resourcePayload, String redirectUrl, Map<String, String> requestedError) {
+        return new StatelessAuthCode(
+                UUID.randomUUID().toString(), resourcePayload, redirectUrl, requestedError);
+    }
+
+    public String seal(SealedTokenCodec sealedTokenCodec, Duration ttl) {
+        return sealedTokenCodec.seal(
+                TOKEN_USE,
+                new JWTClaimsSet.Builder()
+                        .jwtID(id)
+                        .claim(RESOURCE_PAYLOAD_CLAIM, resourcePayload)
+                        .claim(REDIRECT_URL_CLAIM, redirectUrl)
+                        .claim(REQUESTED_ERROR_CLAIM, requestedError)
+                        .expirationTime(Date.from(Instant.now().plus(ttl)))
+                        .build());
+    }
+
+    // Returns null if the code was not sealed by a stub sharing the key or has expired
+    public static StatelessAuthCode open(SealedTokenCodec sealedTokenCodec, String code) {
+        if (code == null) {
+            return null;
+        }
+        JWTClaimsSet claimsSet = sealedTokenCodec.unseal(TOKEN_USE, code);
+        if (claimsSet == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> requestedErrorClaim =
+                    claimsSet.getJSONObjectClaim(REQUESTED_ERROR_CLAIM);
+            Map<String, String> requestedError = null;
+            if (requestedErrorClaim != null) {
+                requestedError = new HashMap<>();
+                for (Map.Entry<String, Object> entry : requestedErrorClaim.entrySet()) {
+                    requestedError.put(
+                            entry.getKey(),
+                            entry.getValue() == null ? null : entry.getValue().toString());
+                }
+            }
+            return new StatelessAuthCode(
+                    claimsSet.getJWTID(),
+                    claimsSet.getStringClaim(RESOURCE_PAYLOAD_CLAIM),
+                    claimsSet.getStringClaim(REDIRECT_URL_CLAIM),
+                    requestedError);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.id.Subject;
+import com.nimbusds.openid.connect.sdk.claims.UserInfo;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.List;
+
+// A VC issued at authorize time, with the credential endpoint's response already rendered for the
+// CRI type that issued it. Serving it needs no JWT parsing or JSON building.
+public record StoredCredential(
+        String subject,
+        String jti,
+        String signedJwt,
+        HttpStatus status,
+        String contentType,
+        byte[] responseBody) {
+    private static final String JWT_CONTENT_TYPE = "application/jwt;charset=UTF-8";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String CREDENTIAL_JWT_CLAIM =
+            "https://vocab.account.gov.uk/v1/credentialJWT";
+    private static final String CREDENTIAL_STATUS_CLAIM =
+            "https://vocab.account.gov.uk/v1/credentialStatus";
+
+    public static StoredCredential render(CriType criType, SignedJWT verifiableCredential)
+            throws ParseException {
+        JWTClaimsSet claimsSet = verifiableCredential.getJWTClaimsSet();
+        String subject = claimsSet.getSubject();
+        String jti = claimsSet.getJWTID();
+        String signedJwt = verifiableCredential.serialize();
+
+        return switch (criType) {
+            case DOC_CHECK_APP_CRI_TYPE -> {
+                var userInfo = new UserInfo(new Subject(subject));
+                userInfo.setClaim(CREDENTIAL_JWT_CLAIM, List.of(signedJwt));
+                yield json(jti, signedJwt, HttpStatus.CREATED, userInfo);
+            }
+            case F2F_CRI_TYPE -> {
+                var userInfo = new UserInfo(new Subject(subject));
+                userInfo.setClaim(CREDENTIAL_STATUS_CLAIM, "pending");
+                yield json(jti, signedJwt, HttpStatus.ACCEPTED, userInfo);
+            }
+            default ->
+                    new StoredCredential(
+                            subject,
+                            jti,
+                            signedJwt,
+                            HttpStatus.CREATED,
+                            JWT_CONTENT_TYPE,
+                            signedJwt.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static StoredCredential json(
+            String jti, String signedJwt, HttpStatus status, UserInfo userInfo) {
+        return new StoredCredential(
+                userInfo.getSubject().getValue(),
+                jti,
+                signedJwt,
+                status,
+                JSON_CONTENT_TYPE,
+                userInfo.toJSONObject().toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void send(Context ctx) {
+        ctx.contentType(contentType);
+        ctx.status(status);
+        ctx.result(responseBody);
+    }
+}
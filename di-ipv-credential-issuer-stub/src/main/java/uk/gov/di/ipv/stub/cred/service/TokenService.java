@@ -1,41 +1,87 @@
 package uk.gov.di.ipv.stub.cred.service;
 
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.ParseException;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 import uk.gov.di.ipv.stub.cred.validation.Validator;
 
-import java.util.Map;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class TokenService {
 
     private static final long DEFAULT_ACCESS_TOKEN_TTL_IN_SECS = 3600;
-    private final Map<String, String> accessTokens;
+    static final Duration ACCESS_TOKEN_TTL = Duration.ofSeconds(DEFAULT_ACCESS_TOKEN_TTL_IN_SECS);
+    private static final String ACCESS_TOKEN_USE = "access_token";
+    private static final String RESOURCE_PAYLOAD_CLAIM = "resource_payload";
+    private static final String REQUESTED_ERROR_CLAIM = "requested_error";
+    private final ExpiringStore<String, String> accessTokens;
+    private final SealedTokenCodec sealedTokenCodec;
 
     public TokenService() {
-        this.accessTokens = new ConcurrentHashMap<>();
+        this(SealedTokenCodec.fromConfig());
+    }
+
+    TokenService(SealedTokenCodec sealedTokenCodec) {
+        this.accessTokens =
+                new ExpiringStore<>(
+                        "accessTokens",
+                        ACCESS_TOKEN_TTL,
+                        CredentialIssuerConfig.getSessionStoreMaxEntries());
+        this.sealedTokenCodec = sealedTokenCodec;
+    }
+
+    // Stateless access tokens carry their own payload, so any instance can serve the credential
+    public boolean isStateless() {
+        return sealedTokenCodec != null;
     }
 
     public void persist(AccessToken accessToken, String resourcePayload) {
-        this.accessTokens.put(accessToken.toAuthorizationHeader(), resourcePayload);
+        this.accessTokens.put(
+                CriContext.scoped(accessToken.toAuthorizationHeader()), resourcePayload);
     }
 
     public String getPayload(String authorizationHeaderValue) {
-        return this.accessTokens.get(authorizationHeaderValue);
+        if (isStateless()) {
+            return getStatelessClaim(authorizationHeaderValue, RESOURCE_PAYLOAD_CLAIM);
+        }
+        return this.accessTokens.get(CriContext.scoped(authorizationHeaderValue));
+    }
+
+    public String getRequestedCredentialError(String authorizationHeaderValue) {
+        return getStatelessClaim(authorizationHeaderValue, REQUESTED_ERROR_CLAIM);
     }
 
+    // A stateless token stays usable until it expires, there is nothing to revoke
     public void revoke(String authorizationHeaderValue) {
-        this.accessTokens.remove(authorizationHeaderValue);
+        this.accessTokens.remove(CriContext.scoped(authorizationHeaderValue));
     }
 
     public AccessToken createBearerAccessToken() {
         return new BearerAccessToken(DEFAULT_ACCESS_TOKEN_TTL_IN_SECS, null);
     }
 
+    public AccessToken createStatelessAccessToken(
+            String resourcePayload, String requestedCredentialError) {
+        JWTClaimsSet claimsSet =
+                new JWTClaimsSet.Builder()
+                        .claim(RESOURCE_PAYLOAD_CLAIM, resourcePayload)
+                        .claim(REQUESTED_ERROR_CLAIM, requestedCredentialError)
+                        .expirationTime(Date.from(Instant.now().plus(ACCESS_TOKEN_TTL)))
+                        .build();
+        return new BearerAccessToken(
+                sealedTokenCodec.seal(ACCESS_TOKEN_USE, claimsSet),
+                DEFAULT_ACCESS_TOKEN_TTL_IN_SECS,
+                null);
+    }
+
     public ValidationResult validateAccessToken(String accessTokenString) {
         if (Validator.isNullBlankOrEmpty(accessTokenString)) {
             return new ValidationResult(false, OAuth2Error.INVALID_REQUEST);
@@ -53,4 +99,19 @@ public class TokenService {
 
         return ValidationResult.createValidResult();
     }
+
+    private String getStatelessClaim(String authorizationHeaderValue, String claim) {
+        if (!isStateless() || Validator.isNullBlankOrEmpty(authorizationHeaderValue)) {
+            return null;
+        }
+        try {
+            JWTClaimsSet claimsSet =
+                    sealedTokenCodec.unseal(
+                            ACCESS_TOKEN_USE,
+                            BearerAccessToken.parse(authorizationHeaderValue).getValue());
+            return claimsSet == null ? null : (String) claimsSet.getClaim(claim);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
 }
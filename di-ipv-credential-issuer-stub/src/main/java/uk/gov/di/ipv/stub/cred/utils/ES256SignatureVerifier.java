@@ -1,6 +1,7 @@
 package uk.gov.di.ipv.stub.cred.utils;
 
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.impl.ECDSA;
 import com.nimbusds.jose.jwk.ECKey;
@@ -14,27 +15,35 @@ import static com.nimbusds.jose.JWSAlgorithm.ES256;
 public class ES256SignatureVerifier {
     public boolean valid(SignedJWT signedJWT, String publicJwk)
             throws JOSEException, ParseException {
-        ECKey signingPublicJwk = ECKey.parse(publicJwk);
-        ECDSAVerifier ecdsaVerifier = new ECDSAVerifier(signingPublicJwk);
-        if (signatureIsDerFormat(signedJWT)) {
-            return transcodeSignature(signedJWT).verify(ecdsaVerifier);
-        }
-        return signedJWT.verify(ecdsaVerifier);
+        return valid(signedJWT, new ECDSAVerifier(ECKey.parse(publicJwk)));
+    }
+
+    // Verifies against the signing input directly, so a DER signature only needs its bytes
+    // transcoding rather than the whole JWT rebuilding
+    public boolean valid(SignedJWT signedJWT, JWSVerifier verifier) throws JOSEException {
+        return verifier.verify(
+                signedJWT.getHeader(),
+                signedJWT.getSigningInput(),
+                Base64URL.encode(toConcatSignature(signedJWT.getSignature().decode())));
     }
 
     public SignedJWT transcodeSignature(SignedJWT signedJWT)
-            throws JOSEException, java.text.ParseException {
-        Base64URL transcodedSignatureBase64 =
-                Base64URL.encode(
-                        ECDSA.transcodeSignatureToConcat(
-                                signedJWT.getSignature().decode(),
-                                ECDSA.getSignatureByteArrayLength(ES256)));
-        String[] jwtParts = signedJWT.serialize().split("\\.");
-        return SignedJWT.parse(
-                String.format("%s.%s.%s", jwtParts[0], jwtParts[1], transcodedSignatureBase64));
+            throws JOSEException, ParseException {
+        return new SignedJWT(
+                signedJWT.getHeader().toBase64URL(),
+                signedJWT.getPayload().toBase64URL(),
+                Base64URL.encode(toConcatSignature(signedJWT.getSignature().decode())));
     }
 
     public boolean signatureIsDerFormat(SignedJWT signedJWT) throws JOSEException {
         return signedJWT.getSignature().decode().length != ECDSA.getSignatureByteArrayLength(ES256);
     }
+
+    private static byte[] toConcatSignature(byte[] signature) throws JOSEException {
+        int concatLength = ECDSA.getSignatureByteArrayLength(ES256);
+        if (signature.length == concatLength) {
+            return signature;
+        }
+        return ECDSA.transcodeSignatureToConcat(signature, concatLength);
+    }
 }
@@ -0,0 +1,256 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.UnauthorizedResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.service.ConfigService;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Makes the authorize, token, credential and JWKS endpoints behave like a real CRI: responses are
+// held back by a sampled delay, and a percentage of requests fail with a 5xx or time out. Delays
+// don't hold a thread. The handler runs straight away and a scheduler completes the response once
+// the delay has passed. Profiles are read from FAULT_INJECTION_PROFILES at startup and can be
+// replaced at runtime through the admin endpoint, which needs the same API key as generating VCs.
+// What was injected is reported on /metrics.
+public class FaultInjection {
+    public static final String ADMIN_ENDPOINT = "/admin/fault-injection";
+    private static final Logger LOGGER = LoggerFactory.getLogger(FaultInjection.class);
+    private static final String PROFILES_ENV_VAR = "FAULT_INJECTION_PROFILES";
+    private static final String API_KEY_HEADER = "x-api-key";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<Endpoint, Profile>> PROFILES_TYPE =
+            new TypeReference<>() {};
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "fault-injection");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+    private static final Map<Endpoint, EndpointMetrics> METRICS = new EnumMap<>(Endpoint.class);
+
+    private static volatile Map<Endpoint, Profile> profiles = loadProfiles();
+
+    static {
+        for (Endpoint endpoint : Endpoint.values()) {
+            METRICS.put(endpoint, new EndpointMetrics());
+        }
+    }
+
+    public enum Endpoint {
+        AUTHORIZE,
+        TOKEN,
+        CREDENTIAL,
+        JWKS;
+
+        private String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Distribution {
+        FIXED,
+        NORMAL,
+        LOG_NORMAL
+    }
+
+    // millis is the fixed delay, the mean for NORMAL or the median for LOG_NORMAL
+    public record Delay(Distribution distribution, long millis, double stdDevMillis, double sigma) {
+        public Delay {
+            if (distribution == null) {
+                throw new IllegalArgumentException("Delay distribution is required");
+            }
+            if (millis < 0 || stdDevMillis < 0 || sigma < 0) {
+                throw new IllegalArgumentException("Delay parameters must not be negative");
+            }
+        }
+
+        long sample(Random random) {
+            return switch (distribution) {
+                case FIXED -> millis;
+                case NORMAL ->
+                        Math.max(0, Math.round(millis + random.nextGaussian() * stdDevMillis));
+                case LOG_NORMAL -> Math.round(millis * Math.exp(random.nextGaussian() * sigma));
+            };
+        }
+    }
+
+    // errorStatus defaults to 503 and timeoutMillis, how long a timed out request is held before
+    // a 504 is sent, defaults to 30 seconds
+    public record Profile(
+            Delay delay,
+            double errorPercent,
+            int errorStatus,
+            double timeoutPercent,
+            long timeoutMillis) {
+        public Profile {
+            if (errorPercent < 0 || timeoutPercent < 0 || errorPercent + timeoutPercent > 100) {
+                throw new IllegalArgumentException(
+                        "errorPercent and timeoutPercent must add up to between 0 and 100");
+            }
+            if (errorStatus == 0) {
+                errorStatus = HttpStatus.SERVICE_UNAVAILABLE.getCode();
+            } else if (errorStatus < 500 || errorStatus > 599) {
+                throw new IllegalArgumentException("errorStatus must be a 5xx status");
+            }
+            if (timeoutMillis == 0) {
+                timeoutMillis = 30_000;
+            }
+        }
+    }
+
+    private FaultInjection() {}
+
+    public static Handler inject(Endpoint endpoint, Handler handler) {
+        EndpointMetrics metrics = METRICS.get(endpoint);
+        return ctx -> {
+            Profile profile = profiles.get(endpoint);
+            if (profile == null) {
+                handler.handle(ctx);
+                return;
+            }
+
+            Random random = ThreadLocalRandom.current();
+            double roll = random.nextDouble() * 100;
+            if (roll < profile.timeoutPercent()) {
+                metrics.timeouts.increment();
+                ctx.status(HttpStatus.GATEWAY_TIMEOUT);
+                respondAfter(ctx, profile.timeoutMillis());
+                return;
+            }
+
+            if (roll < profile.timeoutPercent() + profile.errorPercent()) {
+                metrics.errors.increment();
+                ctx.status(profile.errorStatus());
+                ctx.json(Map.of("error", "server_error", "error_description", "Injected fault"));
+            } else {
+                handler.handle(ctx);
+            }
+
+            if (profile.delay() != null) {
+                long delayMillis = profile.delay().sample(random);
+                metrics.delay.record(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+                respondAfter(ctx, delayMillis);
+            }
+        };
+    }
+
+    public static void getProfiles(Context ctx) {
+        ctx.json(profiles);
+    }
+
+    public static void setProfiles(Context ctx) {
+        checkApiKey(ctx);
+        try {
+            setProfiles(OBJECT_MAPPER.readValue(ctx.body(), PROFILES_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new BadRequestResponse(
+                    "Invalid fault injection profiles: " + e.getOriginalMessage());
+        }
+        ctx.json(profiles);
+    }
+
+    public static void clearProfiles(Context ctx) {
+        checkApiKey(ctx);
+        setProfiles(Map.of());
+        ctx.status(HttpStatus.NO_CONTENT);
+    }
+
+    static void setProfiles(Map<Endpoint, Profile> newProfiles) {
+        profiles = copy(newProfiles);
+        LOGGER.info("Fault injection profiles set for {}", profiles.keySet());
+    }
+
+    static void appendMetrics(StringBuilder out) {
+        out.append("# TYPE stub_fault_injection_total counter\n");
+        METRICS.forEach(
+                (endpoint, metrics) -> {
+                    appendCount(out, endpoint, "error", metrics.errors.sum());
+                    appendCount(out, endpoint, "timeout", metrics.timeouts.sum());
+                });
+        out.append("# TYPE stub_fault_injection_delay_seconds summary\n");
+        METRICS.forEach(
+                (endpoint, metrics) ->
+                        metrics.delay.append(
+                                out,
+                                "stub_fault_injection_delay_seconds",
+                                "endpoint=\"" + endpoint.label() + "\""));
+        out.append("# TYPE stub_fault_injection_profile_active gauge\n");
+        Map<Endpoint, Profile> current = profiles;
+        for (Endpoint endpoint : Endpoint.values()) {
+            out.append("stub_fault_injection_profile_active{endpoint=\"")
+                    .append(endpoint.label())
+                    .append("\"} ")
+                    .append(current.containsKey(endpoint) ? 1 : 0)
+                    .append('\n');
+        }
+    }
+
+    private static void appendCount(
+            StringBuilder out, Endpoint endpoint, String fault, long count) {
+        out.append("stub_fault_injection_total{endpoint=\"")
+                .append(endpoint.label())
+                .append("\",fault=\"")
+                .append(fault)
+                .append("\"} ")
+                .append(count)
+                .append('\n');
+    }
+
+    private static void checkApiKey(Context ctx) {
+        var apiKey = ConfigService.getApiKey();
+        if (apiKey != null && !apiKey.equals(ctx.header(API_KEY_HEADER))) {
+            throw new UnauthorizedResponse("Invalid or missing API key");
+        }
+    }
+
+    // The response already set on the context is sent when the future completes
+    private static void respondAfter(Context ctx, long delayMillis) {
+        if (delayMillis <= 0) {
+            return;
+        }
+        CompletableFuture<Void> delayed = new CompletableFuture<>();
+        SCHEDULER.schedule(() -> delayed.complete(null), delayMillis, TimeUnit.MILLISECONDS);
+        ctx.future(() -> delayed);
+    }
+
+    private static Map<Endpoint, Profile> loadProfiles() {
+        String configured = CredentialIssuerConfig.getConfigValue(PROFILES_ENV_VAR);
+        if (configured == null || configured.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return copy(OBJECT_MAPPER.readValue(configured, PROFILES_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid " + PROFILES_ENV_VAR, e);
+        }
+    }
+
+    private static Map<Endpoint, Profile> copy(Map<Endpoint, Profile> profiles) {
+        return profiles.isEmpty() ? Map.of() : new EnumMap<>(profiles);
+    }
+
+    private static final class EndpointMetrics {
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final RequestMetrics.Histogram delay = new RequestMetrics.Histogram();
+    }
+}
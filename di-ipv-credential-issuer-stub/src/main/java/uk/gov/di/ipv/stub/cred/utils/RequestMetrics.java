@@ -0,0 +1,307 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpResponseException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+// Per route request counts, status codes and latency, plus the time spent in the expensive phases
+// of a request. Recording only touches preallocated counters. Latencies go into fixed log-scale
+// buckets, four per doubling from 10us to about 100s, and p50/p95/p99 are interpolated from the
+// buckets when /metrics is scraped. Each request also gets a Server-Timing header with the phases
+// it ran. Their times go into a small array made for the request, which is only bound to a thread
+// while the handler runs, or while a task handed on with propagate runs on a pool thread, so
+// nothing outlives the request. The header is set once the handler returns, so streamed responses
+// such as /credentials/generate/batch, which are committed by then, go without it. Their phases
+// are still recorded on /metrics.
+public class RequestMetrics {
+    public static final String METRICS_ENDPOINT = "/metrics";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+    private static final int MAX_STATUS_CODE = 600;
+
+    private static final Map<String, RouteMetrics> ROUTES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Map<String, LongSupplier>> COUNTERS =
+            new ConcurrentSkipListMap<>();
+    private static final Map<String, Map<String, LongSupplier>> GAUGES =
+            new ConcurrentSkipListMap<>();
+    private static final Map<String, Map<String, Histogram>> LATENCIES =
+            new ConcurrentSkipListMap<>();
+    private static final Histogram[] PHASES = new Histogram[Phase.values().length];
+    private static final ThreadLocal<AtomicLongArray> REQUEST_PHASE_NANOS = new ThreadLocal<>();
+
+    static {
+        Arrays.setAll(PHASES, i -> new Histogram());
+    }
+
+    public enum Phase {
+        JAR_DECRYPT("jar-decrypt"),
+        SIGNATURE_VERIFY("signature-verify"),
+        VC_SIGN("vc-sign"),
+        OUTBOUND_HTTP("outbound-http");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private RequestMetrics() {}
+
+    public static Handler timed(String method, String path, Handler handler) {
+        RouteMetrics route =
+                ROUTES.computeIfAbsent(method + " " + path, key -> new RouteMetrics(method, path));
+        return ctx -> {
+            AtomicLongArray phaseNanos = new AtomicLongArray(PHASES.length);
+            REQUEST_PHASE_NANOS.set(phaseNanos);
+            long start = System.nanoTime();
+            int status = 500;
+            try {
+                handler.handle(ctx);
+                status = ctx.statusCode();
+            } catch (HttpResponseException e) {
+                status = e.getStatus();
+                throw e;
+            } finally {
+                REQUEST_PHASE_NANOS.remove();
+                long elapsed = System.nanoTime() - start;
+                route.record(status, elapsed);
+                if (!ctx.res().isCommitted()) {
+                    ctx.header(SERVER_TIMING_HEADER, serverTiming(phaseNanos, elapsed));
+                }
+            }
+        };
+    }
+
+    // Adds the phases the task runs to the calling request's Server-Timing header
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        AtomicLongArray phaseNanos = REQUEST_PHASE_NANOS.get();
+        if (phaseNanos == null) {
+            return task;
+        }
+        return () -> {
+            AtomicLongArray previous = REQUEST_PHASE_NANOS.get();
+            REQUEST_PHASE_NANOS.set(phaseNanos);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    REQUEST_PHASE_NANOS.remove();
+                } else {
+                    REQUEST_PHASE_NANOS.set(previous);
+                }
+            }
+        };
+    }
+
+    public static long startPhase() {
+        return System.nanoTime();
+    }
+
+    public static void endPhase(Phase phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        PHASES[phase.ordinal()].record(elapsed);
+        AtomicLongArray phaseNanos = REQUEST_PHASE_NANOS.get();
+        if (phaseNanos != null) {
+            phaseNanos.addAndGet(phase.ordinal(), elapsed);
+        }
+    }
+
+    // Adds a counter kept by another component to the scrape, read when /metrics is served
+    public static void registerCounter(String name, String labels, LongSupplier value) {
+        COUNTERS.computeIfAbsent(name, key -> new ConcurrentSkipListMap<>()).put(labels, value);
+    }
+
+    public static void registerGauge(String name, String labels, LongSupplier value) {
+        GAUGES.computeIfAbsent(name, key -> new ConcurrentSkipListMap<>()).put(labels, value);
+    }
+
+    // Adds a latency summary for another component to record into, in nanoseconds
+    public static LongConsumer registerLatency(String name, String labels) {
+        Histogram histogram = new Histogram();
+        LATENCIES
+                .computeIfAbsent(name, key -> new ConcurrentSkipListMap<>())
+                .put(labels, histogram);
+        return histogram::record;
+    }
+
+    public static void getMetrics(Context ctx) {
+        ctx.contentType(CONTENT_TYPE);
+        ctx.result(scrape());
+    }
+
+    static String scrape() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE stub_http_requests_total counter\n");
+        ROUTES.values().forEach(route -> route.appendCounts(out));
+        out.append("# TYPE stub_http_request_duration_seconds summary\n");
+        ROUTES.values()
+                .forEach(
+                        route ->
+                                route.latency.append(
+                                        out,
+                                        "stub_http_request_duration_seconds",
+                                        route.labels));
+        out.append("# TYPE stub_phase_duration_seconds summary\n");
+        for (Phase phase : Phase.values()) {
+            PHASES[phase.ordinal()].append(
+                    out, "stub_phase_duration_seconds", "phase=\"" + phase.label + "\"");
+        }
+        FaultInjection.appendMetrics(out);
+        appendSeries(out, "counter", COUNTERS);
+        appendSeries(out, "gauge", GAUGES);
+        LATENCIES.forEach(
+                (name, series) -> {
+                    out.append("# TYPE ").append(name).append(" summary\n");
+                    series.forEach((labels, histogram) -> histogram.append(out, name, labels));
+                });
+        return out.toString();
+    }
+
+    private static void appendSeries(
+            StringBuilder out, String type, Map<String, Map<String, LongSupplier>> metrics) {
+        metrics.forEach(
+                (name, series) -> {
+                    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+                    series.forEach(
+                            (labels, value) ->
+                                    out.append(name)
+                                            .append('{')
+                                            .append(labels)
+                                            .append("} ")
+                                            .append(value.getAsLong())
+                                            .append('\n'));
+                });
+    }
+
+    private static String serverTiming(AtomicLongArray phaseNanos, long totalNanos) {
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            long nanos = phaseNanos.get(phase.ordinal());
+            if (nanos > 0) {
+                appendTiming(header, phase.label, nanos);
+                header.append(", ");
+            }
+        }
+        appendTiming(header, "total", totalNanos);
+        return header.toString();
+    }
+
+    private static void appendTiming(StringBuilder header, String name, long nanos) {
+        header.append(name).append(";dur=").append(nanos / 1000 / 1000.0);
+    }
+
+    private static final class RouteMetrics {
+        private final String labels;
+        private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS_CODE);
+        private final Histogram latency = new Histogram();
+
+        private RouteMetrics(String method, String path) {
+            this.labels = "method=\"" + method + "\",route=\"" + path + "\"";
+        }
+
+        private void record(int status, long nanos) {
+            statusCounts.incrementAndGet(status >= 0 && status < MAX_STATUS_CODE ? status : 0);
+            latency.record(nanos);
+        }
+
+        private void appendCounts(StringBuilder out) {
+            for (int status = 0; status < MAX_STATUS_CODE; status++) {
+                long count = statusCounts.get(status);
+                if (count > 0) {
+                    out.append("stub_http_requests_total{")
+                            .append(labels)
+                            .append(",status=\"")
+                            .append(status)
+                            .append("\"} ")
+                            .append(count)
+                            .append('\n');
+                }
+            }
+        }
+    }
+
+    static final class Histogram {
+        private static final long[] UPPER_BOUNDS_NANOS = upperBounds();
+
+        private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS_NANOS.length + 1);
+        private final LongAdder sumNanos = new LongAdder();
+
+        void record(long nanos) {
+            int bucket = Arrays.binarySearch(UPPER_BOUNDS_NANOS, nanos);
+            counts.incrementAndGet(bucket < 0 ? -bucket - 1 : bucket);
+            sumNanos.add(nanos);
+        }
+
+        double quantileSeconds(double quantile) {
+            long[] snapshot = snapshot();
+            return quantileSeconds(snapshot, Arrays.stream(snapshot).sum(), quantile);
+        }
+
+        void append(StringBuilder out, String name, String labels) {
+            long[] snapshot = snapshot();
+            long total = Arrays.stream(snapshot).sum();
+            for (double quantile : QUANTILES) {
+                out.append(name)
+                        .append('{')
+                        .append(labels)
+                        .append(",quantile=\"")
+                        .append(quantile)
+                        .append("\"} ")
+                        .append(quantileSeconds(snapshot, total, quantile))
+                        .append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ");
+            out.append(sumNanos.sum() / 1e9).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ");
+            out.append(total).append('\n');
+        }
+
+        private long[] snapshot() {
+            long[] snapshot = new long[counts.length()];
+            Arrays.setAll(snapshot, counts::get);
+            return snapshot;
+        }
+
+        // Interpolates linearly within the bucket holding the quantile
+        private static double quantileSeconds(long[] snapshot, long total, double quantile) {
+            if (total == 0) {
+                return Double.NaN;
+            }
+            double rank = quantile * total;
+            long cumulative = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                if (snapshot[i] > 0 && cumulative + snapshot[i] >= rank) {
+                    if (i == UPPER_BOUNDS_NANOS.length) {
+                        return UPPER_BOUNDS_NANOS[i - 1] / 1e9;
+                    }
+                    long lower = i == 0 ? 0 : UPPER_BOUNDS_NANOS[i - 1];
+                    double fraction = (rank - cumulative) / snapshot[i];
+                    return (lower + fraction * (UPPER_BOUNDS_NANOS[i] - lower)) / 1e9;
+                }
+                cumulative += snapshot[i];
+            }
+            return UPPER_BOUNDS_NANOS[UPPER_BOUNDS_NANOS.length - 1] / 1e9;
+        }
+
+        private static long[] upperBounds() {
+            int bucketsPerDoubling = 4;
+            int doublings = 24;
+            long[] bounds = new long[bucketsPerDoubling * doublings + 1];
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = Math.round(10_000 * Math.pow(2, (double) i / bucketsPerDoubling));
+            }
+            return bounds;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.MustacheFactory;
+import io.javalin.config.RoutesConfig;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Serves the files under a classpath directory from memory. Each file is also served under a
+// fingerprinted name with its content hash before the extension, which can be cached forever.
+// Templates and the url(...) references in stylesheets are rewritten to use those names. Text files
+// are gzipped once at startup and the gzipped bytes are sent to clients that accept them, under
+// their own ETag so a cache never revalidates one encoding against the other.
+public class StaticAssets {
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final String REVALIDATE = "no-cache";
+    private static final Pattern QUOTED_PATH = Pattern.compile("\"(/[^\"\\s]+)\"");
+    private static final Pattern CSS_URL = Pattern.compile("url\\((['\"]?)(/[^'\")\\s]+)\\1\\)");
+    private static final String STYLESHEET = "css";
+    private static final Set<String> COMPRESSIBLE = Set.of("css", "js", "map", "svg", "txt", "ico");
+    private static final Map<String, String> CONTENT_TYPES =
+            Map.ofEntries(
+                    Map.entry("css", "text/css"),
+                    Map.entry("js", "text/javascript"),
+                    Map.entry("map", "application/json"),
+                    Map.entry("svg", "image/svg+xml"),
+                    Map.entry("txt", "text/plain"),
+                    Map.entry("ico", "image/x-icon"),
+                    Map.entry("png", "image/png"),
+                    Map.entry("jpg", "image/jpeg"),
+                    Map.entry("woff", "font/woff"),
+                    Map.entry("woff2", "font/woff2"));
+
+    private final Map<String, Asset> assets;
+    private final Map<String, String> fingerprintedPaths;
+
+    StaticAssets(Map<String, byte[]> files) {
+        // Stylesheets point at fonts and images, so take their fingerprint once those references
+        // are rewritten, and a changed image also changes the name of each stylesheet using it
+        Map<String, String> fingerprinted = new HashMap<>();
+        files.forEach(
+                (path, body) -> {
+                    if (!STYLESHEET.equals(extension(path))) {
+                        fingerprinted.put(path, fingerprint(path, hash(body)));
+                    }
+                });
+        Map<String, byte[]> bodies = new HashMap<>(files);
+        files.forEach(
+                (path, body) -> {
+                    if (STYLESHEET.equals(extension(path))) {
+                        byte[] rewritten =
+                                rewriteUrls(new String(body, StandardCharsets.UTF_8), fingerprinted)
+                                        .getBytes(StandardCharsets.UTF_8);
+                        bodies.put(path, rewritten);
+                        fingerprinted.put(path, fingerprint(path, hash(rewritten)));
+                    }
+                });
+        Map<String, Asset> assetsByPath = new HashMap<>();
+        bodies.forEach(
+                (path, body) -> {
+                    String extension = extension(path);
+                    String hash = hash(body);
+                    String fingerprintedPath = fingerprinted.get(path);
+                    String contentType =
+                            CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+                    byte[] gzipped = COMPRESSIBLE.contains(extension) ? gzip(body) : null;
+                    if (gzipped != null && gzipped.length >= body.length) {
+                        gzipped = null;
+                    }
+                    String etag = "\"" + hash + "\"";
+                    String gzippedEtag = gzipped == null ? null : "\"" + hash + "-gz\"";
+                    assetsByPath.put(
+                            path,
+                            new Asset(
+                                    contentType, etag, gzippedEtag, REVALIDATE, body, gzipped));
+                    assetsByPath.put(
+                            fingerprintedPath,
+                            new Asset(
+                                    contentType, etag, gzippedEtag, IMMUTABLE, body, gzipped));
+                });
+        this.assets = Map.copyOf(assetsByPath);
+        this.fingerprintedPaths = Map.copyOf(fingerprinted);
+    }
+
+    public static StaticAssets load(String classpathDirectory) {
+        URL root = StaticAssets.class.getResource(classpathDirectory);
+        if (root == null) {
+            throw new IllegalStateException("Static assets not found: " + classpathDirectory);
+        }
+        try {
+            URI uri = root.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                    return new StaticAssets(readFiles(jar.getPath(classpathDirectory)));
+                }
+            }
+            return new StaticAssets(readFiles(Path.of(uri)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void addRoutes(RoutesConfig routesConfig) {
+        assets.forEach((path, asset) -> routesConfig.get(path, asset::serve));
+    }
+
+    public String fingerprintedPath(String path) {
+        return fingerprintedPaths.getOrDefault(path, path);
+    }
+
+    // Points every quoted absolute path to a known asset at its fingerprinted name
+    public String rewriteReferences(String text) {
+        Matcher matcher = QUOTED_PATH.matcher(text);
+        StringBuilder rewritten = new StringBuilder(text.length());
+        while (matcher.find()) {
+            String replacement = "\"" + fingerprintedPath(matcher.group(1)) + "\"";
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+        }
+        return matcher.appendTail(rewritten).toString();
+    }
+
+    private static String rewriteUrls(String css, Map<String, String> fingerprinted) {
+        Matcher matcher = CSS_URL.matcher(css);
+        StringBuilder rewritten = new StringBuilder(css.length());
+        while (matcher.find()) {
+            String path = fingerprinted.getOrDefault(matcher.group(2), matcher.group(2));
+            String replacement = "url(" + matcher.group(1) + path + matcher.group(1) + ")";
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+        }
+        return matcher.appendTail(rewritten).toString();
+    }
+
+    // Templates are read and compiled once, so the rewrite does not happen per render
+    public MustacheFactory mustacheFactory(String resourceRoot) {
+        return new DefaultMustacheFactory(resourceRoot) {
+            @Override
+            public Reader getReader(String resourceName) {
+                StringWriter template = new StringWriter();
+                try (Reader reader = super.getReader(resourceName)) {
+                    reader.transferTo(template);
+                    return new StringReader(rewriteReferences(template.toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    Asset get(String path) {
+        return assets.get(path);
+    }
+
+    private static Map<String, byte[]> readFiles(Path root) throws IOException {
+        Map<String, byte[]> files = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path file : paths.filter(Files::isRegularFile).toList()) {
+                String relative = root.relativize(file).toString().replace('\\', '/');
+                files.put("/" + relative, Files.readAllBytes(file));
+            }
+        }
+        return files;
+    }
+
+    private static String extension(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String fingerprint(String path, String hash) {
+        int dot = path.lastIndexOf('.');
+        if (dot <= path.lastIndexOf('/')) {
+            return path + "-" + hash;
+        }
+        return path.substring(0, dot) + "-" + hash + path.substring(dot);
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, 5));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    record Asset(
+            String contentType,
+            String etag,
+            String gzippedEtag,
+            String cacheControl,
+            byte[] body,
+            byte[] gzipped) {
+        void serve(Context ctx) {
+            boolean sendGzipped = gzipped != null && acceptsGzip(ctx.header("Accept-Encoding"));
+            String sentEtag = sendGzipped ? gzippedEtag : etag;
+            ctx.header("Cache-Control", cacheControl);
+            ctx.header("ETag", sentEtag);
+            if (gzipped != null) {
+                ctx.header("Vary", "Accept-Encoding");
+            }
+            if (sentEtag.equals(ctx.header("If-None-Match"))) {
+                ctx.status(HttpStatus.NOT_MODIFIED);
+                return;
+            }
+            ctx.contentType(contentType);
+            if (sendGzipped) {
+                ctx.header("Content-Encoding", "gzip");
+                ctx.result(gzipped);
+            } else {
+                ctx.result(body);
+            }
+        }
+    }
+}
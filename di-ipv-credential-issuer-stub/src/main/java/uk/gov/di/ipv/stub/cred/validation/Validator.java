@@ -12,6 +12,7 @@ import uk.gov.di.ipv.stub.cred.config.CriType;
 import uk.gov.di.ipv.stub.cred.handlers.RequestParamConstants;
 import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
+import uk.gov.di.ipv.stub.cred.service.StatelessAuthCode;
 
 import java.util.Arrays;
 import java.util.List;
@@ -206,7 +207,7 @@ public class Validator {
         return ValidationResult.createValidResult();
     }
 
-    public ValidationResult validateTokenRequest(Context ctx) {
+    public ValidationResult validateTokenRequest(Context ctx, StatelessAuthCode statelessAuthCode) {
         String clientIdValue = ctx.formParam(RequestParamConstants.CLIENT_ID);
         String assertionType = ctx.formParam(RequestParamConstants.CLIENT_ASSERTION_TYPE);
         String assertion = ctx.formParam(RequestParamConstants.CLIENT_ASSERTION);
@@ -235,7 +236,7 @@ public class Validator {
             LOGGER.error("Missing authorization code");
             return new ValidationResult(false, OAuth2Error.INVALID_GRANT);
         }
-        if (Objects.isNull(this.authCodeService.getPayload(authCodeValue))) {
+        if (Objects.isNull(this.authCodeService.getPayload(authCodeValue, statelessAuthCode))) {
             LOGGER.error("Invalid authorization code provided");
             return new ValidationResult(false, OAuth2Error.INVALID_GRANT);
         }
@@ -0,0 +1,136 @@
+package uk.gov.di.ipv.stub.cred.vc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+import uk.gov.di.ipv.stub.cred.config.KeyRegistry.SigningKeys;
+import uk.gov.di.ipv.stub.cred.domain.Credential;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Test setups ask for the same VC over and over, and each one costs a signature. Signed VCs are
+// kept keyed by a SHA-256 of the canonical JSON of the credential, the CRI type, the VC issuer and
+// the signing key, evicted least recently used and dropped after a TTL. The jti and nbf are not
+// part of the key, so a request that needs a unique jti or a different nbf can reuse the built
+// claims and only pay for the signature.
+class VcMemo {
+    private static final String ENABLED_ENV_VAR = "VC_MEMOIZATION_ENABLED";
+    private static final String MAX_ENTRIES_ENV_VAR = "VC_MEMOIZATION_MAX_ENTRIES";
+    private static final String TTL_ENV_VAR = "VC_MEMOIZATION_TTL_SECONDS";
+    private static final String METRIC_NAME = "stub_vc_memoization_total";
+    private static final ObjectWriter CANONICAL_WRITER =
+            new ObjectMapper().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writer();
+
+    private final Map<String, Entry> entries;
+    private final Duration ttl;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder variants = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    VcMemo(int maxEntries, Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.entries =
+                Collections.synchronizedMap(
+                        new LinkedHashMap<>(16, 0.75f, true) {
+                            @Override
+                            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                                return size() > maxEntries;
+                            }
+                        });
+        RequestMetrics.registerCounter(METRIC_NAME, "result=\"hit\"", hits::sum);
+        RequestMetrics.registerCounter(METRIC_NAME, "result=\"variant\"", variants::sum);
+        RequestMetrics.registerCounter(METRIC_NAME, "result=\"miss\"", misses::sum);
+    }
+
+    // Null unless VC_MEMOIZATION_ENABLED is set
+    static VcMemo fromConfig() {
+        if (!CredentialIssuerConfig.isEnabled(ENABLED_ENV_VAR, "false")) {
+            return null;
+        }
+        String maxEntries = CredentialIssuerConfig.getConfigValue(MAX_ENTRIES_ENV_VAR);
+        String ttlSeconds = CredentialIssuerConfig.getConfigValue(TTL_ENV_VAR);
+        return new VcMemo(
+                maxEntries == null ? 1000 : Integer.parseInt(maxEntries),
+                Duration.ofSeconds(ttlSeconds == null ? 300 : Long.parseLong(ttlSeconds)),
+                Clock.systemUTC());
+    }
+
+    String key(Credential credential, CriType criType, String issuer, SigningKeys signingKeys)
+            throws JsonProcessingException {
+        Map<String, Object> canonical = new LinkedHashMap<>();
+        canonical.put("criType", criType.value);
+        canonical.put("issuer", issuer);
+        canonical.put("algorithm", signingKeys.algorithm().name());
+        canonical.put("userId", credential.userId());
+        canonical.put("clientId", credential.clientId());
+        canonical.put("credentialSubject", credential.credentialSubject());
+        canonical.put("evidence", credential.evidence());
+
+        MessageDigest digest = sha256();
+        digest.update(CANONICAL_WRITER.writeValueAsBytes(canonical));
+        digest.update(signingKeys.source().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && !clock.instant().isBefore(entry.expiresAt())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String key, SignedJWT vc, Long nbf) {
+        entries.put(key, new Entry(vc, nbf, clock.instant().plus(ttl)));
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordVariant() {
+        variants.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Entry(SignedJWT vc, Long nbf, Instant expiresAt) {
+        JWTClaimsSet claims() {
+            try {
+                return vc.getJWTClaimsSet();
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -1,22 +1,18 @@
 package uk.gov.di.ipv.stub.cred.vc;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.crypto.ECDSASigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import uk.gov.di.ipv.stub.cred.config.CredentialIssuerConfig;
+import uk.gov.di.ipv.stub.cred.config.KeyRegistry;
 import uk.gov.di.ipv.stub.cred.domain.Credential;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics.Phase;
 
-import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.ECPrivateKey;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.*;
 
 import static com.nimbusds.jwt.JWTClaimNames.AUDIENCE;
@@ -40,6 +36,53 @@ import static uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialConstants.VERIFIABL
 public class VerifiableCredentialGenerator {
     static final String JTI_SCHEME_AND_PATH_PREFIX = "urn:uuid";
 
+    private final VcMemo memo;
+
+    public VerifiableCredentialGenerator() {
+        this(VcMemo.fromConfig());
+    }
+
+    VerifiableCredentialGenerator(VcMemo memo) {
+        this.memo = memo;
+    }
+
+    // For test setup, where the same VC is asked for repeatedly. With VC_MEMOIZATION_ENABLED a
+    // repeat of an earlier credential gets the VC signed for it back, or when uniqueJti is set or
+    // the nbf differs, its claims re-signed with a new jti and the requested nbf.
+    public SignedJWT generate(Credential credential, boolean uniqueJti)
+            throws NoSuchAlgorithmException,
+                    InvalidKeySpecException,
+                    JOSEException,
+                    JsonProcessingException {
+        if (memo == null) {
+            return generate(credential);
+        }
+
+        String key =
+                memo.key(
+                        credential,
+                        getCriType(),
+                        CredentialIssuerConfig.getVerifiableCredentialIssuer(),
+                        KeyRegistry.getVcSigningKeys());
+        VcMemo.Entry memoized = memo.get(key);
+        if (memoized == null) {
+            memo.recordMiss();
+            SignedJWT vc = generate(credential);
+            memo.put(key, vc, credential.nbf());
+            return vc;
+        }
+        if (!uniqueJti && Objects.equals(memoized.nbf(), credential.nbf())) {
+            memo.recordHit();
+            return memoized.vc();
+        }
+        memo.recordVariant();
+        return signTestVc(
+                new JWTClaimsSet.Builder(memoized.claims())
+                        .claim(NOT_BEFORE, credential.nbf())
+                        .claim(JWT_ID, newJti())
+                        .build());
+    }
+
     public SignedJWT generate(Credential credential)
             throws NoSuchAlgorithmException, InvalidKeySpecException, JOSEException {
 
@@ -110,10 +153,7 @@ public class VerifiableCredentialGenerator {
                                 ConfigService.getClientConfig(credential.clientId())
                                         .getAudienceForVcJwt())
                         .claim(NOT_BEFORE, credential.nbf())
-                        .claim(
-                                JWT_ID,
-                                String.format(
-                                        "%s:%s", JTI_SCHEME_AND_PATH_PREFIX, UUID.randomUUID()))
+                        .claim(JWT_ID, newJti())
                         .claim(VC_CLAIM, vc);
 
         JWTClaimsSet claimsSet = claim.build();
@@ -121,41 +161,18 @@ public class VerifiableCredentialGenerator {
         return signTestVc(claimsSet);
     }
 
-    private static SignedJWT signTestVc(JWTClaimsSet claimsSet)
-            throws InvalidKeySpecException, NoSuchAlgorithmException, JOSEException {
-        var signingAlgorithm = CredentialIssuerConfig.getVerifiableCredentialSigningAlgorithm();
-        var signingKey = CredentialIssuerConfig.getVerifiableCredentialSigningKey();
-
-        return switch (signingAlgorithm) {
-            case EC -> signTestVcWithEc(claimsSet, signingKey);
-            case RSA -> signTestVcWithRSA(claimsSet, signingKey);
-        };
+    private static String newJti() {
+        return String.format("%s:%s", JTI_SCHEME_AND_PATH_PREFIX, UUID.randomUUID());
     }
 
-    private static SignedJWT signTestVcWithEc(JWTClaimsSet claimsSet, String signingKey)
-            throws InvalidKeySpecException, NoSuchAlgorithmException, JOSEException {
-        var kf = KeyFactory.getInstance(EncryptionAlgorithm.EC.name());
-        var privateKeySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(signingKey));
-        var ecdsaSigner = new ECDSASigner((ECPrivateKey) kf.generatePrivate(privateKeySpec));
-
-        var jwsHeader = new JWSHeader.Builder(JWSAlgorithm.ES256).type(JOSEObjectType.JWT).build();
-
-        var signedJWT = new SignedJWT(jwsHeader, claimsSet);
-        signedJWT.sign(ecdsaSigner);
-
-        return signedJWT;
-    }
-
-    private static SignedJWT signTestVcWithRSA(JWTClaimsSet claimsSet, String signingKey)
+    private static SignedJWT signTestVc(JWTClaimsSet claimsSet)
             throws InvalidKeySpecException, NoSuchAlgorithmException, JOSEException {
-        var kf = KeyFactory.getInstance(EncryptionAlgorithm.RSA.name());
-        var privateKeySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(signingKey));
-        var signer = new RSASSASigner(kf.generatePrivate(privateKeySpec));
-
-        var jwsHeader = new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).build();
+        var signingKeys = KeyRegistry.getVcSigningKeys();
 
-        var signedJWT = new SignedJWT(jwsHeader, claimsSet);
-        signedJWT.sign(signer);
+        var signedJWT = new SignedJWT(signingKeys.jwsHeader(), claimsSet);
+        long start = RequestMetrics.startPhase();
+        signedJWT.sign(signingKeys.signer());
+        RequestMetrics.endPhase(Phase.VC_SIGN, start);
 
         return signedJWT;
     }
@@ -0,0 +1,134 @@
+package uk.gov.di.ipv.stub.cred.auth;
+
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.oauth2.sdk.auth.verifier.Context;
+import com.nimbusds.oauth2.sdk.auth.verifier.InvalidClientException;
+import com.nimbusds.oauth2.sdk.id.ClientID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.MockedStatic;
+import uk.gov.di.ipv.stub.cred.config.ClientConfig;
+import uk.gov.di.ipv.stub.cred.config.JwtAuthenticationConfig;
+import uk.gov.di.ipv.stub.cred.service.ConfigService;
+import uk.gov.di.ipv.stub.cred.utils.StubSsmClient;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.security.PublicKey;
+import java.util.List;
+import java.util.Map;
+
+import static com.nimbusds.oauth2.sdk.auth.ClientAuthenticationMethod.PRIVATE_KEY_JWT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mockStatic;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.CLIENT_CONFIG;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PUBLIC_JWK_1;
+
+@ExtendWith(SystemStubsExtension.class)
+class ClientVerifierRegistryTest {
+
+    @SystemStub
+    private final EnvironmentVariables environmentVariables =
+            new EnvironmentVariables("ENVIRONMENT", "TEST");
+
+    @BeforeAll
+    public static void setUp() {
+        StubSsmClient.setClientConfigParams(CLIENT_CONFIG);
+    }
+
+    @Test
+    void getJarSigningKeyReturnsParsedClientKey() throws Exception {
+        ClientVerifierRegistry.ClientKey clientKey =
+                ClientVerifierRegistry.getJarSigningKey("clientIdValid");
+
+        ECKey expectedKey = ECKey.parse(CLIENT_CONFIG.get("clientIdValid").getSigningPublicJwk());
+        assertEquals(expectedKey.computeThumbprint().toString(), clientKey.thumbprint());
+        assertEquals(expectedKey.toECPublicKey(), clientKey.publicKey());
+    }
+
+    @Test
+    void clientsWithTheSameJwkShareAClientKey() {
+        assertSame(
+                ClientVerifierRegistry.getJarSigningKey("clientIdValid"),
+                ClientVerifierRegistry.getAuthenticationKey("clientIdValidMultipleUri"));
+    }
+
+    @Test
+    void getJarSigningKeyReturnsNullForUnknownClient() {
+        assertNull(ClientVerifierRegistry.getJarSigningKey("🧨"));
+    }
+
+    @Test
+    void getAuthenticationPublicKeysOnlyReturnsKeysForJwtAuthentication() {
+        assertEquals(1, ClientVerifierRegistry.getAuthenticationPublicKeys("clientIdValid").size());
+        assertNull(ClientVerifierRegistry.getAuthenticationPublicKeys("noAuthenticationClient"));
+    }
+
+    @Test
+    void onlyFailsClientsWithBadJwksWhenSelectingPublicKeys() throws Exception {
+        Map<String, ClientConfig> clientConfigs =
+                Map.of(
+                        "clientConfig1",
+                        jwtAuthenticationClient("{\"valid_json\": \"but_not_a_jwk\"}"),
+                        "clientConfig2",
+                        jwtAuthenticationClient(EC_PUBLIC_JWK_1),
+                        "clientConfig3",
+                        jwtAuthenticationClient("Not even json"));
+        CriConfigPublicKeySelector keySelector =
+                new CriConfigPublicKeySelector(ClientVerifierRegistry::getAuthenticationPublicKeys);
+
+        try (MockedStatic<ConfigService> mockedConfigService = mockStatic(ConfigService.class)) {
+            mockedConfigService.when(ConfigService::getClientConfigs).thenReturn(clientConfigs);
+
+            InvalidClientException client1Exception =
+                    assertThrows(
+                            InvalidClientException.class,
+                            () -> selectPublicKeys(keySelector, "clientConfig1"));
+            InvalidClientException client3Exception =
+                    assertThrows(
+                            InvalidClientException.class,
+                            () -> selectPublicKeys(keySelector, "clientConfig3"));
+            List<? extends PublicKey> client2PublicKeys =
+                    selectPublicKeys(keySelector, "clientConfig2");
+
+            assertEquals(
+                    "No public keys found for clientId 'clientConfig1'",
+                    client1Exception.getMessage());
+            assertEquals(
+                    "No public keys found for clientId 'clientConfig3'",
+                    client3Exception.getMessage());
+            assertEquals(
+                    List.of(ECKey.parse(EC_PUBLIC_JWK_1).toECPublicKey()), client2PublicKeys);
+        }
+    }
+
+    @Test
+    void selectClientSecretsThrowsUnsupportedOperationException() {
+        CriConfigPublicKeySelector keySelector = new CriConfigPublicKeySelector(clientId -> null);
+
+        assertThrows(
+                UnsupportedOperationException.class,
+                () ->
+                        keySelector.selectClientSecrets(
+                                new ClientID(), PRIVATE_KEY_JWT, new Context<>()));
+    }
+
+    private static List<? extends PublicKey> selectPublicKeys(
+            CriConfigPublicKeySelector keySelector, String clientId)
+            throws InvalidClientException {
+        return keySelector.selectPublicKeys(new ClientID(clientId), null, null, false, null);
+    }
+
+    private static ClientConfig jwtAuthenticationClient(String signingPublicJwk) {
+        ClientConfig clientConfig = ClientConfig.builder().build();
+        clientConfig.setJwtAuthentication(
+                new JwtAuthenticationConfig(
+                        signingPublicJwk, List.of("https://example.com"), "jwt"));
+        return clientConfig;
+    }
+}
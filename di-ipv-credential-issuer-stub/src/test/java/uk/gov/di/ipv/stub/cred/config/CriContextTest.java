@@ -0,0 +1,91 @@
+package uk.gov.di.ipv.stub.cred.config;
+
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(SystemStubsExtension.class)
+class CriContextTest {
+
+    @SystemStub
+    private final EnvironmentVariables environmentVariables =
+            new EnvironmentVariables(
+                    "CREDENTIAL_ISSUER_TYPE",
+                    "EVIDENCE",
+                    "CREDENTIAL_ISSUER_NAME",
+                    "Shared Stub",
+                    "F2F_CREDENTIAL_ISSUER_NAME",
+                    "F2F Stub");
+
+    @Test
+    void shouldUseConfiguredCriTypeWhenNoneIsBound() {
+        assertNull(CriContext.current());
+        assertEquals(CriType.EVIDENCE_CRI_TYPE, CredentialIssuerConfig.getCriType());
+        assertEquals("Shared Stub", CredentialIssuerConfig.getName());
+    }
+
+    @Test
+    void shouldServeBoundCriTypeAndItsConfigWhileHandling() throws Exception {
+        AtomicReference<CriType> criType = new AtomicReference<>();
+        AtomicReference<String> name = new AtomicReference<>();
+
+        CriContext.bind(
+                        CriType.F2F_CRI_TYPE,
+                        ctx -> {
+                            criType.set(CredentialIssuerConfig.getCriType());
+                            name.set(CredentialIssuerConfig.getName());
+                        })
+                .handle(mock(Context.class));
+
+        assertEquals(CriType.F2F_CRI_TYPE, criType.get());
+        assertEquals("F2F Stub", name.get());
+        assertNull(CriContext.current());
+    }
+
+    @Test
+    void shouldFallBackToSharedConfigForCriWithoutOverride() throws Exception {
+        assertEquals(
+                "Shared Stub",
+                CriContext.call(CriType.ADDRESS_CRI_TYPE, CredentialIssuerConfig::getName));
+    }
+
+    @Test
+    void shouldPropagateBoundCriTypeToOtherThreads() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<CriType> task =
+                    CriContext.call(
+                            CriType.NINO_CRI_TYPE,
+                            () -> CriContext.propagate(CredentialIssuerConfig::getCriType));
+
+            assertEquals(CriType.NINO_CRI_TYPE, executor.submit(task).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldHostSelectedCriTypesInMultiCriMode() {
+        environmentVariables.set("MULTI_CRI_TYPES", "EVIDENCE, F2F,UNKNOWN");
+
+        assertEquals(
+                List.of(CriType.EVIDENCE_CRI_TYPE, CriType.F2F_CRI_TYPE),
+                CredentialIssuerConfig.getMultiCriTypes());
+        assertEquals(
+                "/evidence-driving-licence",
+                CriContext.pathPrefix(CriType.EVIDENCE_DRIVING_LICENCE_CRI_TYPE));
+    }
+}
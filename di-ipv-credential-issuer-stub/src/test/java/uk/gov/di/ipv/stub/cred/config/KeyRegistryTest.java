@@ -0,0 +1,85 @@
+package uk.gov.di.ipv.stub.cred.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PRIVATE_KEY_JWK;
+
+@ExtendWith(SystemStubsExtension.class)
+class KeyRegistryTest {
+
+    @SystemStub
+    private final EnvironmentVariables environmentVariables =
+            new EnvironmentVariables(
+                    "PRIVATE_ENCRYPTION_KEY_JWK",
+                    RSA_PRIVATE_KEY_JWK,
+                    "VC_SIGNING_KEY",
+                    EC_PRIVATE_KEY_1);
+
+    @Test
+    void shouldReuseDecrypterWhileKeySourceIsUnchanged() throws Exception {
+        assertSame(KeyRegistry.getDecrypter(), KeyRegistry.getDecrypter());
+        assertSame(KeyRegistry.getPublicJwks(), KeyRegistry.getPublicJwks());
+    }
+
+    @Test
+    void shouldDerivePublicJwksFromPrivateEncryptionKey() throws Exception {
+        var keys = (List<Map<String, Object>>) KeyRegistry.getPublicJwks().get("keys");
+
+        assertEquals(1, keys.size());
+        assertEquals("a-key-identifier", keys.get(0).get("kid"));
+        assertNull(keys.get(0).get("d"));
+    }
+
+    @Test
+    void shouldReuseSignerWhileKeySourceIsUnchanged() throws Exception {
+        var signingKeys = KeyRegistry.getVcSigningKeys();
+
+        assertSame(signingKeys, KeyRegistry.getVcSigningKeys());
+        assertEquals(JWSAlgorithm.ES256, signingKeys.jwsHeader().getAlgorithm());
+    }
+
+    @Test
+    void shouldSwapSignerWhenKeySourceChanges() throws Exception {
+        var signingKeys = KeyRegistry.getVcSigningKeys();
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        byte[] rotatedKey = keyPairGenerator.generateKeyPair().getPrivate().getEncoded();
+        environmentVariables.set("VC_SIGNING_KEY", Base64.getEncoder().encodeToString(rotatedKey));
+
+        assertNotSame(signingKeys, KeyRegistry.getVcSigningKeys());
+    }
+
+    @Test
+    void shouldKeepSeparateSignerForCriWithItsOwnKey() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        byte[] f2fKey = keyPairGenerator.generateKeyPair().getPrivate().getEncoded();
+        environmentVariables.set("F2F_VC_SIGNING_KEY", Base64.getEncoder().encodeToString(f2fKey));
+
+        var signingKeys = KeyRegistry.getVcSigningKeys();
+        var f2fSigningKeys = CriContext.call(CriType.F2F_CRI_TYPE, KeyRegistry::getVcSigningKeys);
+        var f2fSigningKeysAgain =
+                CriContext.call(CriType.F2F_CRI_TYPE, KeyRegistry::getVcSigningKeys);
+
+        assertNotSame(signingKeys, f2fSigningKeys);
+        assertSame(signingKeys, KeyRegistry.getVcSigningKeys());
+        assertSame(f2fSigningKeys, f2fSigningKeysAgain);
+    }
+}
@@ -76,14 +76,17 @@ import java.util.Map;
 import static com.fasterxml.jackson.databind.SerializationFeature.INDENT_OUTPUT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -151,12 +154,21 @@ class AuthorizeHandlerTest {
     @Captor ArgumentCaptor<String> stringArgumentCaptor;
     @Captor ArgumentCaptor<Map<String, Object>> jsonArgumentCaptor;
     @Captor ArgumentCaptor<AuthorizationCode> authCoreArgumentCaptor;
+    @Captor ArgumentCaptor<List<AuthorizeHandler.BulkAuthorizeResult>> bulkResultsCaptor;
 
     @BeforeAll
     static void beforeAllSetUp() {
         StubSsmClient.setClientConfigParams(CLIENT_CONFIG);
     }
 
+    @BeforeEach
+    void setUpGeneratedVc() throws Exception {
+        lenient().when(mockSignedJwt.serialize()).thenReturn(DCMAW_VC);
+        lenient()
+                .when(mockSignedJwt.getJWTClaimsSet())
+                .thenReturn(SignedJWT.parse(DCMAW_VC).getJWTClaimsSet());
+    }
+
     @Nested
     class doAuthorizeTests {
         @BeforeEach
@@ -487,7 +499,10 @@ class AuthorizeHandlerTest {
                     ArgumentCaptor.forClass(Credential.class);
 
             verify(mockVcGenerator).generate(persistedCredential.capture());
-            verify(mockCredentialService).persist(eq(mockSignedJwt.serialize()), any(String.class));
+            verify(mockCredentialService)
+                    .persist(
+                            argThat(credential -> DCMAW_VC.equals(credential.signedJwt())),
+                            any(String.class));
         }
 
         @Test
@@ -566,7 +581,10 @@ class AuthorizeHandlerTest {
             assertNull(persistedAttributes.get("birthDate"));
             assertEquals("test-value", persistedAttributes.get("test"));
 
-            verify(mockCredentialService).persist(eq(mockSignedJwt.serialize()), any(String.class));
+            verify(mockCredentialService)
+                    .persist(
+                            argThat(credential -> DCMAW_VC.equals(credential.signedJwt())),
+                            any(String.class));
         }
     }
 
@@ -608,6 +626,83 @@ class AuthorizeHandlerTest {
                             .contains(authCoreArgumentCaptor.getValue().getValue()));
         }
 
+        @Test
+        void apiAuthorizeBulkShouldReturnResultOrErrorForEachRequestInOrder() throws Exception {
+            String credentialSubjectJson =
+                    "{\"name\":[{\"nameParts\":[{\"type\":\"GivenName\",\"value\":\"Kenneth\"}]}]}";
+            String evidenceJson = "{\"strengthScore\":3,\"type\":\"IdentityCheck\"}";
+            String request = signedRequestJwt(defaultClaimSetBuilder().build()).serialize();
+            when(mockContext.bodyAsClass(ApiAuthRequest[].class))
+                    .thenReturn(
+                            new ApiAuthRequest[] {
+                                new ApiAuthRequest(
+                                        "clientIdValid",
+                                        request,
+                                        credentialSubjectJson,
+                                        evidenceJson,
+                                        null,
+                                        null,
+                                        null,
+                                        null),
+                                new ApiAuthRequest(
+                                        "unknownClientId",
+                                        request,
+                                        credentialSubjectJson,
+                                        evidenceJson,
+                                        null,
+                                        null,
+                                        null,
+                                        null)
+                            });
+            when(mockVcGenerator.generate(any())).thenReturn(mockSignedJwt);
+
+            authorizeHandler.apiAuthorizeBulk(mockContext);
+
+            verify(mockAuthCodeService)
+                    .persist(authCoreArgumentCaptor.capture(), anyString(), eq(VALID_REDIRECT_URI));
+            verify(mockContext).status(200);
+            verify(mockContext).json(bulkResultsCaptor.capture());
+            var results = bulkResultsCaptor.getValue();
+            assertEquals(2, results.size());
+            assertEquals(0, results.get(0).index());
+            assertTrue(
+                    results.get(0)
+                            .redirectUri()
+                            .contains(authCoreArgumentCaptor.getValue().getValue()));
+            assertNotNull(results.get(0).jarPayload());
+            assertEquals(1, results.get(1).index());
+            assertNull(results.get(1).redirectUri());
+            assertEquals(
+                    "Error: Could not find client configuration details for: unknownClientId",
+                    results.get(1).error());
+        }
+
+        @Test
+        void apiAuthorizeBulkShouldRejectRequestsOverTheSizeLimit() {
+            ENVIRONMENT_VARIABLES.set("API_AUTHORIZE_BULK_MAX_SIZE", "1");
+            try {
+                when(mockContext.bodyAsClass(ApiAuthRequest[].class))
+                        .thenReturn(
+                                new ApiAuthRequest[] {
+                                    new ApiAuthRequest(
+                                            "clientIdValid", "a", "{}", "{}", null, null, null,
+                                            null),
+                                    new ApiAuthRequest(
+                                            "clientIdValid", "b", "{}", "{}", null, null, null,
+                                            null)
+                                });
+
+                var e =
+                        assertThrows(
+                                BadRequestResponse.class,
+                                () -> authorizeHandler.apiAuthorizeBulk(mockContext));
+
+                assertEquals("Bulk size limit of 1 exceeded", e.getMessage());
+            } finally {
+                ENVIRONMENT_VARIABLES.remove("API_AUTHORIZE_BULK_MAX_SIZE");
+            }
+        }
+
         @Test
         void apiAuthorizeShouldAllowNbfToBeSet() throws Exception {
             when(mockContext.bodyAsClass(ApiAuthRequest.class))
@@ -766,7 +861,10 @@ class AuthorizeHandlerTest {
                     ArgumentCaptor.forClass(Credential.class);
 
             verify(mockVcGenerator).generate(persistedCredential.capture());
-            verify(mockCredentialService).persist(eq(mockSignedJwt.serialize()), any(String.class));
+            verify(mockCredentialService)
+                    .persist(
+                            argThat(credential -> DCMAW_VC.equals(credential.signedJwt())),
+                            any(String.class));
         }
 
         @Test
@@ -852,7 +950,8 @@ class AuthorizeHandlerTest {
             verify(requestedErrorResponseService).persist(stringArgumentCaptor.capture(), any());
             var tokenErrorResponse =
                     requestedErrorResponseService
-                            .getRequestedAccessTokenErrorResponse(stringArgumentCaptor.getValue())
+                            .getRequestedAccessTokenErrorResponse(
+                                    stringArgumentCaptor.getValue(), null)
                             .getErrorObject();
             assertEquals("400", tokenErrorResponse.getCode());
             assertEquals(
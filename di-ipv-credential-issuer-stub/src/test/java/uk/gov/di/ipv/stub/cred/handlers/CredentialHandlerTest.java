@@ -1,9 +1,11 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
+import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.ErrorObject;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
+import com.nimbusds.oauth2.sdk.token.BearerTokenError;
 import com.nimbusds.openid.connect.sdk.UserInfoErrorResponse;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
@@ -13,15 +15,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.config.CriType;
 import uk.gov.di.ipv.stub.cred.service.CredentialService;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StoredCredential;
 import uk.gov.di.ipv.stub.cred.service.TokenService;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.DCMAW_VC;
 
 @ExtendWith(MockitoExtension.class)
 class CredentialHandlerTest {
@@ -53,18 +61,75 @@ class CredentialHandlerTest {
         when(mockTokenService.validateAccessToken(Mockito.anyString()))
                 .thenReturn(ValidationResult.createValidResult());
         when(mockContext.header("Authorization")).thenReturn(accessToken.toAuthorizationHeader());
-        when(mockCredentialService.getCredentialSignedJwt("aResourceId"))
-                .thenReturn("A.VERIFIABLE.CREDENTIAL");
+        when(mockCredentialService.getCredential("aResourceId"))
+                .thenReturn(
+                        StoredCredential.render(
+                                CriType.EVIDENCE_CRI_TYPE, SignedJWT.parse(DCMAW_VC)));
 
         resourceHandler.getResource(mockContext);
 
         verify(mockContext).contentType(DEFAULT_RESPONSE_CONTENT_TYPE);
         verify(mockContext).status(HttpStatus.CREATED);
-        verify(mockContext).result("A.VERIFIABLE.CREDENTIAL");
+        verify(mockContext).result(DCMAW_VC.getBytes(StandardCharsets.UTF_8));
         verify(mockTokenService, times(1)).getPayload(accessToken.toAuthorizationHeader());
         verify(mockTokenService).revoke(accessToken.toAuthorizationHeader());
     }
 
+    @Test
+    void shouldSendStoredResponseForTheCriThatIssuedTheCredential() throws Exception {
+        StoredCredential credential =
+                StoredCredential.render(CriType.F2F_CRI_TYPE, SignedJWT.parse(DCMAW_VC));
+        when(mockTokenService.getPayload(accessToken.toAuthorizationHeader()))
+                .thenReturn("aResourceId");
+        when(mockTokenService.validateAccessToken(Mockito.anyString()))
+                .thenReturn(ValidationResult.createValidResult());
+        when(mockContext.header("Authorization")).thenReturn(accessToken.toAuthorizationHeader());
+        when(mockCredentialService.getCredential("aResourceId")).thenReturn(credential);
+
+        resourceHandler.getResource(mockContext);
+
+        verify(mockContext).contentType("application/json");
+        verify(mockContext).status(HttpStatus.ACCEPTED);
+        verify(mockContext).result(credential.responseBody());
+        verify(mockTokenService).revoke(accessToken.toAuthorizationHeader());
+    }
+
+    @Test
+    void shouldReturnInvalidTokenWhenCredentialIsNoLongerStored() throws Exception {
+        when(mockTokenService.getPayload(accessToken.toAuthorizationHeader()))
+                .thenReturn("anEvictedResourceId");
+        when(mockTokenService.validateAccessToken(Mockito.anyString()))
+                .thenReturn(ValidationResult.createValidResult());
+        when(mockContext.header("Authorization")).thenReturn(accessToken.toAuthorizationHeader());
+        when(mockCredentialService.getCredential("anEvictedResourceId")).thenReturn(null);
+
+        resourceHandler.getResource(mockContext);
+
+        verify(mockContext).status(HttpStatus.UNAUTHORIZED.getCode());
+        verify(mockContext)
+                .json(
+                        BearerTokenError.INVALID_TOKEN
+                                .setDescription("No credential found for the access token")
+                                .toJSONObject());
+        verify(mockTokenService).revoke(accessToken.toAuthorizationHeader());
+    }
+
+    @Test
+    void shouldRenderCredentialCarriedByStatelessAccessToken() throws Exception {
+        when(mockTokenService.isStateless()).thenReturn(true);
+        when(mockTokenService.getPayload(accessToken.toAuthorizationHeader())).thenReturn(DCMAW_VC);
+        when(mockTokenService.validateAccessToken(Mockito.anyString()))
+                .thenReturn(ValidationResult.createValidResult());
+        when(mockContext.header("Authorization")).thenReturn(accessToken.toAuthorizationHeader());
+
+        resourceHandler.getResource(mockContext);
+
+        verify(mockContext).contentType(DEFAULT_RESPONSE_CONTENT_TYPE);
+        verify(mockContext).status(HttpStatus.CREATED);
+        verify(mockContext).result(DCMAW_VC.getBytes(StandardCharsets.UTF_8));
+        verifyNoInteractions(mockCredentialService);
+    }
+
     @Test
     void shouldReturn400WhenAccessTokenIsNotProvided() throws Exception {
         when(mockTokenService.validateAccessToken(Mockito.any())).thenReturn(INVALID_REQUEST);
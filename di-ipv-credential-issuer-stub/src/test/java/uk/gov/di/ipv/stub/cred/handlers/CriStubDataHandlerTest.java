@@ -0,0 +1,85 @@
+package uk.gov.di.ipv.stub.cred.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.service.CriStubDataService;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({SystemStubsExtension.class, MockitoExtension.class})
+class CriStubDataHandlerTest {
+    private static final String STUB_NAME = "Fraud Check (Stub)";
+
+    @SystemStub
+    private final EnvironmentVariables environmentVariables =
+            new EnvironmentVariables("CREDENTIAL_ISSUER_NAME", STUB_NAME);
+
+    @Mock private Context mockContext;
+    @Captor private ArgumentCaptor<byte[]> bodyCaptor;
+
+    private final CriStubDataService criStubDataService = new CriStubDataService();
+
+    @Test
+    void getCriStubDataShouldReturnCompactJsonWithEtag() throws Exception {
+        new CriStubDataHandler(criStubDataService).getCriStubData(mockContext);
+
+        String etag = criStubDataService.getCriStubData(STUB_NAME).etag();
+        verify(mockContext).header(Header.ETAG, etag);
+        verify(mockContext).contentType(ContentType.APPLICATION_JSON);
+        verify(mockContext).result(bodyCaptor.capture());
+        String body = new String(bodyCaptor.getValue());
+        assertFalse(body.contains("\n"));
+        assertTrue(new ObjectMapper().readTree(body).isArray());
+    }
+
+    @Test
+    void getCriStubEvidencePayloadsShouldOnlyReturnPayloadsForStub() throws Exception {
+        new CriStubDataHandler(criStubDataService).getCriStubEvidencePayloads(mockContext);
+
+        verify(mockContext).result(bodyCaptor.capture());
+        JsonNode payloads = new ObjectMapper().readTree(bodyCaptor.getValue());
+        assertFalse(payloads.isEmpty());
+        for (JsonNode payload : payloads) {
+            assertEquals(STUB_NAME, payload.get("criType").asText());
+        }
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenEtagMatches() {
+        String etag = criStubDataService.getCriStubData(STUB_NAME).etag();
+        when(mockContext.header(Header.IF_NONE_MATCH)).thenReturn(etag);
+
+        new CriStubDataHandler(criStubDataService).getCriStubData(mockContext);
+
+        verify(mockContext).header(Header.ETAG, etag);
+        verify(mockContext).status(HttpStatus.NOT_MODIFIED);
+        verify(mockContext, never()).result(any(byte[].class));
+    }
+
+    @Test
+    void shouldReuseSerialisedPayloadForStub() {
+        assertSame(
+                criStubDataService.getCriStubData(STUB_NAME),
+                criStubDataService.getCriStubData(STUB_NAME));
+    }
+}
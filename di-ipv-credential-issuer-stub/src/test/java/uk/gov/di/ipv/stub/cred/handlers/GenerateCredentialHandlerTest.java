@@ -1,29 +1,54 @@
 package uk.gov.di.ipv.stub.cred.handlers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.SignedJWT;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 import io.javalin.http.UnauthorizedResponse;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.domain.Credential;
 import uk.gov.di.ipv.stub.cred.domain.GenerateCredentialRequest;
 import uk.gov.di.ipv.stub.cred.service.ConfigService;
 import uk.gov.di.ipv.stub.cred.vc.VerifiableCredentialGenerator;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.stub.cred.handlers.GenerateCredentialHandler.JWT_CONTENT_TYPE;
 
-@ExtendWith(MockitoExtension.class)
+@ExtendWith({MockitoExtension.class, SystemStubsExtension.class})
 class GenerateCredentialHandlerTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @SystemStub private EnvironmentVariables environmentVariables;
     @Mock private Context mockContext;
     @Mock private VerifiableCredentialGenerator mockCredentialGenerator;
     @InjectMocks private GenerateCredentialHandler generateCredentialHandler;
@@ -38,13 +63,14 @@ class GenerateCredentialHandlerTest {
                             "test-client-id",
                             "{\"subject\": \"foo\"}",
                             "{\"evidence\": \"bar\"}",
+                            null,
                             null);
             var testApiKey = "test-api-key";
             when(mockContext.bodyAsClass(GenerateCredentialRequest.class))
                     .thenReturn(testCredentialRequest);
             when(mockContext.header("x-api-key")).thenReturn(testApiKey);
             var mockJwt = mock(SignedJWT.class);
-            when(mockCredentialGenerator.generate(any())).thenReturn(mockJwt);
+            when(mockCredentialGenerator.generate(any(), anyBoolean())).thenReturn(mockJwt);
             var testVcString = "test-vc-string";
             when(mockJwt.serialize()).thenReturn(testVcString);
             mockedConfigService.when(ConfigService::getApiKey).thenReturn(testApiKey);
@@ -73,4 +99,105 @@ class GenerateCredentialHandlerTest {
                     () -> generateCredentialHandler.generateCredential(mockContext));
         }
     }
+
+    @Test
+    void shouldStreamBatchOfCredentialsInRequestOrder() throws Exception {
+        try (MockedStatic<ConfigService> mockedConfigService = mockStatic(ConfigService.class)) {
+            // arrange
+            mockedConfigService.when(ConfigService::getApiKey).thenReturn(null);
+            when(mockContext.bodyInputStream())
+                    .thenReturn(batchBody("user-1", "user-2", "user-3", "user-4", "user-5"));
+            var responseBody = new ByteArrayOutputStream();
+            when(mockContext.outputStream()).thenReturn(servletOutputStream(responseBody));
+            stubGeneratorToSignUserId();
+
+            // act
+            generateCredentialHandler.generateCredentialBatch(mockContext);
+
+            // assert
+            verify(mockContext).contentType("application/x-ndjson");
+            var lines = responseBody.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(5, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                JsonNode result = OBJECT_MAPPER.readTree(lines.get(i));
+                assertEquals(i, result.get("index").asInt());
+                assertEquals(
+                        "user-" + (i + 1),
+                        SignedJWT.parse(result.get("vc").asText()).getPayload().toString());
+            }
+        }
+    }
+
+    @Test
+    void shouldStopBatchWhenMaxBatchSizeExceeded() throws Exception {
+        try (MockedStatic<ConfigService> mockedConfigService = mockStatic(ConfigService.class)) {
+            // arrange
+            environmentVariables.set("GENERATE_CREDENTIAL_BATCH_MAX_SIZE", "2");
+            var handler = new GenerateCredentialHandler(mockCredentialGenerator);
+            mockedConfigService.when(ConfigService::getApiKey).thenReturn(null);
+            when(mockContext.bodyInputStream())
+                    .thenReturn(batchBody("user-1", "user-2", "user-3"));
+            var responseBody = new ByteArrayOutputStream();
+            when(mockContext.outputStream()).thenReturn(servletOutputStream(responseBody));
+            stubGeneratorToSignUserId();
+
+            // act
+            handler.generateCredentialBatch(mockContext);
+
+            // assert
+            var lines = responseBody.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(3, lines.size());
+            JsonNode lastResult = OBJECT_MAPPER.readTree(lines.get(2));
+            assertEquals(2, lastResult.get("index").asInt());
+            assertEquals("Batch size limit of 2 exceeded", lastResult.get("error").asText());
+            verify(mockCredentialGenerator, times(2)).generate(any(), anyBoolean());
+        }
+    }
+
+    private static InputStream batchBody(String... userIds) throws Exception {
+        var body = new StringBuilder();
+        for (String userId : userIds) {
+            body.append(
+                            OBJECT_MAPPER.writeValueAsString(
+                                    new GenerateCredentialRequest(
+                                            userId,
+                                            "test-client-id",
+                                            "{\"subject\": \"foo\"}",
+                                            "{\"evidence\": \"bar\"}",
+                                            null,
+                                            null)))
+                    .append('\n');
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stubGeneratorToSignUserId() throws Exception {
+        when(mockCredentialGenerator.generate(any(), anyBoolean()))
+                .thenAnswer(
+                        invocation ->
+                                new SignedJWT(
+                                        new JWSHeader(JWSAlgorithm.ES256).toBase64URL(),
+                                        new Payload(
+                                                        ((Credential) invocation.getArgument(0))
+                                                                .userId())
+                                                .toBase64URL(),
+                                        Base64URL.encode("signature")));
+    }
+
+    private static ServletOutputStream servletOutputStream(OutputStream outputStream) {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {}
+
+            @Override
+            public void write(int b) throws IOException {
+                outputStream.write(b);
+            }
+        };
+    }
 }
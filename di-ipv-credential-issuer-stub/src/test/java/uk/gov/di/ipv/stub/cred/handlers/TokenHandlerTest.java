@@ -26,6 +26,7 @@ import uk.gov.di.ipv.stub.cred.domain.RequestedError;
 import uk.gov.di.ipv.stub.cred.error.ClientAuthenticationException;
 import uk.gov.di.ipv.stub.cred.service.AuthCodeService;
 import uk.gov.di.ipv.stub.cred.service.RequestedErrorResponseService;
+import uk.gov.di.ipv.stub.cred.service.StatelessAuthCode;
 import uk.gov.di.ipv.stub.cred.service.TokenService;
 import uk.gov.di.ipv.stub.cred.utils.StubSsmClient;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
@@ -47,6 +48,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.CLIENT_CONFIG;
@@ -98,19 +100,20 @@ class TokenHandlerTest {
                         RequestParamConstants.REDIRECT_URI, TEST_REDIRECT_URI,
                         RequestParamConstants.AUTH_CODE, TEST_AUTH_CODE));
 
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(ValidationResult.createValidResult());
         when(mockValidator.validateRedirectUrlsMatch(anyString(), anyString()))
                 .thenReturn(ValidationResult.createValidResult());
-        when(mockAuthCodeService.getPayload(TEST_AUTH_CODE)).thenReturn(resourceId);
-        when(mockAuthCodeService.getRedirectUrl(TEST_AUTH_CODE)).thenReturn(TEST_REDIRECT_URI);
+        when(mockAuthCodeService.getPayload(TEST_AUTH_CODE, null)).thenReturn(resourceId);
+        when(mockAuthCodeService.getRedirectUrl(TEST_AUTH_CODE, null))
+                .thenReturn(TEST_REDIRECT_URI);
         when(mockTokenService.createBearerAccessToken()).thenReturn(new BearerAccessToken());
 
         tokenHandler.issueAccessToken(mockContext);
 
         verify(mockJwtAuthenticationService).authenticateClient(any());
-        verify(mockAuthCodeService).getPayload(TEST_AUTH_CODE);
-        verify(mockAuthCodeService).revoke(TEST_AUTH_CODE);
+        verify(mockAuthCodeService).getPayload(TEST_AUTH_CODE, null);
+        verify(mockAuthCodeService).revoke(TEST_AUTH_CODE, null);
         verify(mockTokenService).persist(any(AccessToken.class), eq(resourceId));
 
         verify(mockContext).json(resultCaptor.capture());
@@ -140,18 +143,19 @@ class TokenHandlerTest {
                         RequestParamConstants.AUTH_CODE,
                         TEST_AUTH_CODE));
 
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(ValidationResult.createValidResult());
         when(mockValidator.validateRedirectUrlsMatch(anyString(), anyString()))
                 .thenReturn(ValidationResult.createValidResult());
-        when(mockAuthCodeService.getPayload(TEST_AUTH_CODE)).thenReturn(resourceId);
-        when(mockAuthCodeService.getRedirectUrl(TEST_AUTH_CODE)).thenReturn(TEST_REDIRECT_URI);
+        when(mockAuthCodeService.getPayload(TEST_AUTH_CODE, null)).thenReturn(resourceId);
+        when(mockAuthCodeService.getRedirectUrl(TEST_AUTH_CODE, null))
+                .thenReturn(TEST_REDIRECT_URI);
         when(mockTokenService.createBearerAccessToken()).thenReturn(new BearerAccessToken());
 
         tokenHandler.issueAccessToken(mockContext);
 
-        verify(mockAuthCodeService).getPayload(TEST_AUTH_CODE);
-        verify(mockAuthCodeService).revoke(TEST_AUTH_CODE);
+        verify(mockAuthCodeService).getPayload(TEST_AUTH_CODE, null);
+        verify(mockAuthCodeService).revoke(TEST_AUTH_CODE, null);
         verify(mockTokenService).persist(any(AccessToken.class), eq(resourceId));
 
         verify(mockContext).json(resultCaptor.capture());
@@ -164,9 +168,46 @@ class TokenHandlerTest {
                 AccessTokenType.BEARER, accessTokenResponse.getTokens().getAccessToken().getType());
     }
 
+    @Test
+    void shouldOpenStatelessAuthCodeOnceAndPassItToEachLookup() throws Exception {
+        String resourceId = UUID.randomUUID().toString();
+        StatelessAuthCode statelessAuthCode =
+                StatelessAuthCode.create(resourceId, TEST_REDIRECT_URI, null);
+
+        setupMockFormParams(
+                Map.of(
+                        RequestParamConstants.GRANT_TYPE, GrantType.AUTHORIZATION_CODE.getValue(),
+                        RequestParamConstants.CLIENT_ASSERTION, "a-client-assertion",
+                        RequestParamConstants.CLIENT_ASSERTION_TYPE, CLIENT_ASSERTION_TYPE,
+                        RequestParamConstants.REDIRECT_URI, TEST_REDIRECT_URI,
+                        RequestParamConstants.AUTH_CODE, TEST_AUTH_CODE));
+
+        when(mockAuthCodeService.openStateless(TEST_AUTH_CODE)).thenReturn(statelessAuthCode);
+        when(mockValidator.validateTokenRequest(any(), eq(statelessAuthCode)))
+                .thenReturn(ValidationResult.createValidResult());
+        when(mockValidator.validateRedirectUrlsMatch(anyString(), anyString()))
+                .thenReturn(ValidationResult.createValidResult());
+        when(mockAuthCodeService.getPayload(TEST_AUTH_CODE, statelessAuthCode))
+                .thenReturn(resourceId);
+        when(mockAuthCodeService.getRedirectUrl(TEST_AUTH_CODE, statelessAuthCode))
+                .thenReturn(TEST_REDIRECT_URI);
+        when(mockTokenService.isStateless()).thenReturn(true);
+        when(mockTokenService.createStatelessAccessToken(resourceId, null))
+                .thenReturn(new BearerAccessToken());
+
+        tokenHandler.issueAccessToken(mockContext);
+
+        verify(mockAuthCodeService, times(1)).openStateless(TEST_AUTH_CODE);
+        verify(mockAuthCodeService).revoke(TEST_AUTH_CODE, statelessAuthCode);
+        verify(mockTokenService).createStatelessAccessToken(resourceId, null);
+        verify(mockContext).json(resultCaptor.capture());
+        assertNotNull(
+                AccessTokenResponse.parse(resultCaptor.getValue()).getTokens().getAccessToken());
+    }
+
     @Test
     void shouldReturnCorrectErrorResponseIfTokenRequestFailsValidation() {
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(new ValidationResult(false, OAuth2Error.INVALID_CLIENT));
 
         tokenHandler.issueAccessToken(mockContext);
@@ -182,7 +223,7 @@ class TokenHandlerTest {
 
     @Test
     void shouldReturn401IfJwtAuthenticationFails() throws Exception {
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(ValidationResult.createValidResult());
         doThrow(new ClientAuthenticationException("Fail."))
                 .when(mockJwtAuthenticationService)
@@ -202,7 +243,7 @@ class TokenHandlerTest {
     @Test
     void shouldReturn400IfClientConfigureForAuthenticationProvidesClientId() {
         setupMockFormParams(Map.of(RequestParamConstants.CLIENT_ID, "clientIdValid"));
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(ValidationResult.createValidResult());
 
         tokenHandler.issueAccessToken(mockContext);
@@ -220,7 +261,7 @@ class TokenHandlerTest {
     void shouldReturn400ResponseWhenRedirectUrlsDoNotMatch() {
         setupMockFormParams(Map.of(RequestParamConstants.CLIENT_ID, "noAuthenticationClient"));
 
-        when(mockValidator.validateTokenRequest(any()))
+        when(mockValidator.validateTokenRequest(any(), any()))
                 .thenReturn(ValidationResult.createValidResult());
         when(mockValidator.validateRedirectUrlsMatch(any(), any()))
                 .thenReturn(new ValidationResult(false, OAuth2Error.INVALID_GRANT));
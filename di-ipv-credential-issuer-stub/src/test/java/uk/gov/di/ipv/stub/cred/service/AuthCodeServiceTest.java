@@ -3,6 +3,10 @@ package uk.gov.di.ipv.stub.cred.service;
 import com.nimbusds.oauth2.sdk.AuthorizationCode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -24,8 +28,8 @@ public class AuthCodeServiceTest {
 
         authCodeService.persist(authCode, PAYLOAD, REDIRECT_URL);
 
-        String resultantPayload = authCodeService.getPayload(authCode.getValue());
-        String resultantRedirectUrl = authCodeService.getRedirectUrl(authCode.getValue());
+        String resultantPayload = getPayload(authCodeService, authCode.getValue());
+        String resultantRedirectUrl = getRedirectUrl(authCodeService, authCode.getValue());
 
         assertNotNull(resultantPayload);
         assertEquals(PAYLOAD, resultantPayload);
@@ -37,8 +41,98 @@ public class AuthCodeServiceTest {
         AuthorizationCode authCode = new AuthorizationCode();
 
         authCodeService.persist(authCode, PAYLOAD, REDIRECT_URL);
-        authCodeService.revoke(authCode.getValue());
+        revoke(authCodeService, authCode.getValue());
+
+        assertNull(getPayload(authCodeService, authCode.getValue()));
+    }
+
+    @Test
+    void shouldRedeemStatelessAuthCodeOnAnotherInstance() throws Exception {
+        AuthCodeService issuingInstance = new AuthCodeService(new SealedTokenCodec(new byte[32]));
+        AuthCodeService otherInstance = new AuthCodeService(new SealedTokenCodec(new byte[32]));
+
+        AuthorizationCode authCode =
+                issuingInstance.createStatelessAuthCode(
+                        PAYLOAD, REDIRECT_URL, Map.of("requested_api_error", "404"));
+
+        assertEquals(PAYLOAD, getPayload(otherInstance, authCode.getValue()));
+        assertEquals(REDIRECT_URL, getRedirectUrl(otherInstance, authCode.getValue()));
+    }
+
+    @Test
+    void shouldOnlyRedeemStatelessAuthCodeOnce() throws Exception {
+        AuthCodeService statelessAuthCodeService =
+                new AuthCodeService(new SealedTokenCodec(new byte[32]));
+        AuthorizationCode authCode =
+                statelessAuthCodeService.createStatelessAuthCode(PAYLOAD, REDIRECT_URL, null);
+
+        revoke(statelessAuthCodeService, authCode.getValue());
+
+        assertNull(getPayload(statelessAuthCodeService, authCode.getValue()));
+    }
+
+    @Test
+    void shouldRejectStatelessAuthCodeThatIsNotSealed() throws Exception {
+        AuthCodeService statelessAuthCodeService =
+                new AuthCodeService(new SealedTokenCodec(new byte[32]));
+
+        assertNull(getPayload(statelessAuthCodeService, new AuthorizationCode().getValue()));
+    }
+
+    @Test
+    void shouldNotRedeemAuthCodeAsAnotherCri() throws Exception {
+        AuthorizationCode authCode = new AuthorizationCode();
+
+        CriContext.call(
+                CriType.F2F_CRI_TYPE,
+                () -> {
+                    authCodeService.persist(authCode, PAYLOAD, REDIRECT_URL);
+                    return null;
+                });
+
+        assertNull(
+                CriContext.call(
+                        CriType.EVIDENCE_CRI_TYPE,
+                        () -> getPayload(authCodeService, authCode.getValue())));
+        assertEquals(
+                PAYLOAD,
+                CriContext.call(
+                        CriType.F2F_CRI_TYPE,
+                        () -> getPayload(authCodeService, authCode.getValue())));
+    }
+
+    @Test
+    void shouldNotRedeemStatelessAuthCodeAsAnotherCri() throws Exception {
+        AuthCodeService statelessAuthCodeService =
+                new AuthCodeService(new SealedTokenCodec(new byte[32]));
+
+        AuthorizationCode authCode =
+                CriContext.call(
+                        CriType.F2F_CRI_TYPE,
+                        () ->
+                                statelessAuthCodeService.createStatelessAuthCode(
+                                        PAYLOAD, REDIRECT_URL, null));
+
+        assertNull(
+                CriContext.call(
+                        CriType.EVIDENCE_CRI_TYPE,
+                        () -> getPayload(statelessAuthCodeService, authCode.getValue())));
+        assertEquals(
+                PAYLOAD,
+                CriContext.call(
+                        CriType.F2F_CRI_TYPE,
+                        () -> getPayload(statelessAuthCodeService, authCode.getValue())));
+    }
+
+    private static String getPayload(AuthCodeService authCodeService, String authCode) {
+        return authCodeService.getPayload(authCode, authCodeService.openStateless(authCode));
+    }
+
+    private static String getRedirectUrl(AuthCodeService authCodeService, String authCode) {
+        return authCodeService.getRedirectUrl(authCode, authCodeService.openStateless(authCode));
+    }
 
-        assertNull(authCodeService.getPayload(authCode.getValue()));
+    private static void revoke(AuthCodeService authCodeService, String authCode) {
+        authCodeService.revoke(authCode, authCodeService.openStateless(authCode));
     }
 }
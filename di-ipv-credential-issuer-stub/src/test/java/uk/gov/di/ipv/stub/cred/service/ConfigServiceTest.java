@@ -4,15 +4,19 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import uk.gov.di.ipv.stub.cred.config.ClientConfig;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
+import uk.gov.di.ipv.stub.cred.config.CriType;
 import uk.gov.di.ipv.stub.cred.utils.StubSsmClient;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 import uk.org.webcompere.systemstubs.jupiter.SystemStub;
 import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.CLIENT_CONFIG;
 
@@ -55,7 +59,7 @@ class ConfigServiceTest {
 
     @Test
     void getClientConfigUsesCachedValuesIfCachedNotExpired() {
-        ConfigService.getClientConfig("clientIdValid");
+        ConfigService.refreshClientConfigs().join();
         int initialCallCount = StubSsmClient.getParametersByPathCallCount();
         ConfigService.getClientConfig("clientIdValid");
 
@@ -63,13 +67,59 @@ class ConfigServiceTest {
     }
 
     @Test
-    void getClientConfigCallsParamStoreIfCacheExpired() {
+    void getClientConfigServesCachedValueAndRefreshesInBackgroundIfCacheExpired() {
         environmentVariables.set("CONFIG_CACHE_SECONDS", "0");
 
-        ConfigService.getClientConfig("clientIdValid");
+        ConfigService.refreshClientConfigs().join();
         int initialCallCount = StubSsmClient.getParametersByPathCallCount();
-        ConfigService.getClientConfig("clientIdValid");
+        ClientConfig clientConfig = ConfigService.getClientConfig("clientIdValid");
+        ConfigService.pendingRefresh().join();
 
+        assertEquals("https://example.com/audience", clientConfig.getAudienceForVcJwt());
         assertEquals(initialCallCount + 1, StubSsmClient.getParametersByPathCallCount());
     }
+
+    @Test
+    void getClientConfigOnlyReturnsCriSpecificClientWhileServingThatCri() throws Exception {
+        Map<String, ClientConfig> clientConfigs = new HashMap<>(CLIENT_CONFIG);
+        clientConfigs.put("F2F/f2fOnlyClient", CLIENT_CONFIG.get("clientIdValid"));
+        StubSsmClient.setClientConfigParams(clientConfigs);
+        ConfigService.pendingRefresh().join();
+        ConfigService.refreshClientConfigs().join();
+        try {
+            assertNull(ConfigService.getClientConfig("f2fOnlyClient"));
+            assertNull(
+                    CriContext.call(
+                            CriType.ADDRESS_CRI_TYPE,
+                            () -> ConfigService.getClientConfig("f2fOnlyClient")));
+            assertNotNull(
+                    CriContext.call(
+                            CriType.F2F_CRI_TYPE,
+                            () -> ConfigService.getClientConfig("f2fOnlyClient")));
+            assertNotNull(
+                    CriContext.call(
+                            CriType.F2F_CRI_TYPE,
+                            () -> ConfigService.getClientConfig("clientIdValid")));
+        } finally {
+            StubSsmClient.setClientConfigParams(CLIENT_CONFIG);
+            ConfigService.refreshClientConfigs().join();
+        }
+    }
+
+    @Test
+    void getClientConfigReturnsCriFolderClientForConfiguredCriWithoutMultiCri() {
+        environmentVariables.set("CREDENTIAL_ISSUER_TYPE", "F2F");
+        Map<String, ClientConfig> clientConfigs = new HashMap<>(CLIENT_CONFIG);
+        clientConfigs.put("F2F/f2fOnlyClient", CLIENT_CONFIG.get("clientIdValid"));
+        StubSsmClient.setClientConfigParams(clientConfigs);
+        ConfigService.pendingRefresh().join();
+        ConfigService.refreshClientConfigs().join();
+        try {
+            assertNotNull(ConfigService.getClientConfig("f2fOnlyClient"));
+            assertNotNull(ConfigService.getClientConfig("clientIdValid"));
+        } finally {
+            StubSsmClient.setClientConfigParams(CLIENT_CONFIG);
+            ConfigService.refreshClientConfigs().join();
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package uk.gov.di.ipv.stub.cred.service;
 
+import com.nimbusds.jwt.SignedJWT;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.stub.cred.config.CriType;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.DCMAW_VC;
@@ -15,10 +17,12 @@ public class CredentialServiceTest {
     }
 
     @Test
-    void shouldPersistAndGetPayload() {
-        credentialService.persist(DCMAW_VC, "1234");
+    void shouldPersistAndGetPayload() throws Exception {
+        StoredCredential credential =
+                StoredCredential.render(CriType.EVIDENCE_CRI_TYPE, SignedJWT.parse(DCMAW_VC));
+        credentialService.persist(credential, "1234");
 
-        String resultantCredential = credentialService.getCredentialSignedJwt("1234");
-        assertEquals(DCMAW_VC, resultantCredential);
+        StoredCredential resultantCredential = credentialService.getCredential("1234");
+        assertEquals(DCMAW_VC, resultantCredential.signedJwt());
     }
 }
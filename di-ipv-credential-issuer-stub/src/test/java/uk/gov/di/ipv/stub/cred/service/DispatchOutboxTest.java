@@ -0,0 +1,158 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchOutboxTest {
+    @Mock private HttpClient mockHttpClient;
+    @Mock private HttpResponse<Object> mockResponse;
+
+    @Test
+    void shouldSendQueuedRequests() {
+        stubResponse(200);
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 10, 10, false);
+
+        assertTrue(dispatchOutbox.offer(request("first"), "first"));
+        assertTrue(dispatchOutbox.offer(request("second"), "second"));
+        dispatchOutbox.dispatchQueued();
+
+        verify(mockHttpClient, times(2)).sendAsync(any(), any());
+        String metrics = metrics();
+        assertTrue(metrics.contains(depth(dispatchOutbox) + "0"));
+        assertTrue(metrics.contains(count(dispatchOutbox, "enqueued") + "2"));
+        assertTrue(metrics.contains(count(dispatchOutbox, "delivered") + "2"));
+    }
+
+    @Test
+    void shouldSendEveryRequestForTheSameUser() {
+        stubResponse(200);
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 10, 10, false);
+
+        dispatchOutbox.offer(request("user/mitigations/ci"), "first VC");
+        dispatchOutbox.offer(request("user/mitigations/ci"), "second VC");
+        dispatchOutbox.dispatchQueued();
+
+        verify(mockHttpClient, times(2)).sendAsync(any(), any());
+    }
+
+    @Test
+    void shouldLeaveRequestsQueuedWhileMaxInFlightAreOutstanding() {
+        CompletableFuture<HttpResponse<Object>> outstanding = new CompletableFuture<>();
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockHttpClient.sendAsync(
+                        any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(outstanding, CompletableFuture.completedFuture(mockResponse));
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 10, 1, false);
+
+        dispatchOutbox.offer(request("slow"), "slow");
+        dispatchOutbox.offer(request("waiting"), "waiting");
+        dispatchOutbox.dispatchQueued();
+
+        verify(mockHttpClient, times(1)).sendAsync(any(), any());
+        assertTrue(metrics().contains(depth(dispatchOutbox) + "1"));
+
+        outstanding.complete(mockResponse);
+        dispatchOutbox.dispatchQueued();
+
+        verify(mockHttpClient, times(2)).sendAsync(any(), any());
+        assertTrue(metrics().contains(count(dispatchOutbox, "delivered") + "2"));
+    }
+
+    @Test
+    void shouldRejectRequestsWhenFull() {
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 1, 10, false);
+
+        assertTrue(dispatchOutbox.offer(request("first"), "first"));
+        assertFalse(dispatchOutbox.offer(request("second"), "second"));
+        assertTrue(metrics().contains(depth(dispatchOutbox) + "1"));
+    }
+
+    @Test
+    void shouldRetryFailedRequests() {
+        stubResponse(500);
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 10, 10, false);
+
+        dispatchOutbox.offer(request("failing"), "failing");
+        dispatchOutbox.dispatchQueued();
+
+        String metrics = metrics();
+        assertTrue(metrics.contains(count(dispatchOutbox, "delivered") + "0"));
+        assertTrue(metrics.contains(count(dispatchOutbox, "retried") + "1"));
+    }
+
+    @Test
+    void shouldPublishEachOutboxUnderItsOwnLabels() {
+        stubResponse(200);
+        DispatchOutbox dispatchOutbox = new DispatchOutbox(mockHttpClient, 10, 10, false);
+        DispatchOutbox otherOutbox = new DispatchOutbox(mockHttpClient, 10, 10, false);
+        dispatchOutbox.offer(request("delivered"), "delivered");
+        dispatchOutbox.dispatchQueued();
+        dispatchOutbox.offer(request("queued"), "queued");
+
+        String metrics = metrics();
+        assertNotEquals(dispatchOutbox.metricLabels(), otherOutbox.metricLabels());
+        assertTrue(metrics.contains(depth(dispatchOutbox) + "1"));
+        assertTrue(metrics.contains(depth(otherOutbox) + "0"));
+        assertTrue(metrics.contains(count(dispatchOutbox, "delivered") + "1"));
+        assertTrue(
+                metrics.contains(
+                        "stub_dispatch_outbox_delivery_seconds_count{"
+                                + dispatchOutbox.metricLabels()
+                                + "} 1"));
+    }
+
+    private void stubResponse(int statusCode) {
+        when(mockResponse.statusCode()).thenReturn(statusCode);
+        when(mockHttpClient.sendAsync(
+                        any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    }
+
+    private static String metrics() {
+        Context context = mock(Context.class);
+        RequestMetrics.getMetrics(context);
+        ArgumentCaptor<String> metricsCaptor = ArgumentCaptor.forClass(String.class);
+        verify(context).result(metricsCaptor.capture());
+        return metricsCaptor.getValue();
+    }
+
+    private static String depth(DispatchOutbox dispatchOutbox) {
+        return "stub_dispatch_outbox_depth{" + dispatchOutbox.metricLabels() + "} ";
+    }
+
+    private static String count(DispatchOutbox dispatchOutbox, String result) {
+        return "stub_dispatch_outbox_messages_total{"
+                + dispatchOutbox.metricLabels()
+                + ",result=\""
+                + result
+                + "\"} ";
+    }
+
+    private static HttpRequest request(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("https://example.com/" + path))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import io.javalin.http.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiringStoreTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Mock private Clock mockClock;
+    @Mock private Context mockContext;
+
+    private ExpiringStore<String, String> store;
+
+    @BeforeEach
+    void setup() {
+        when(mockClock.instant()).thenReturn(NOW);
+        store = new ExpiringStore<>("test", TTL, 2, mockClock);
+    }
+
+    @Test
+    void shouldReturnEntryBeforeItExpires() {
+        store.put("key", "value");
+        when(mockClock.instant()).thenReturn(NOW.plus(TTL).minusSeconds(1));
+
+        assertEquals("value", store.get("key"));
+    }
+
+    @Test
+    void shouldNotReturnExpiredEntry() {
+        store.put("key", "value");
+        when(mockClock.instant()).thenReturn(NOW.plus(TTL));
+
+        assertNull(store.get("key"));
+        assertEquals(new ExpiringStore.Stats(0, 1, 0), store.getStats());
+    }
+
+    @Test
+    void shouldPurgeExpiredEntriesOnWrite() {
+        store.put("first", "value");
+        store.put("second", "value");
+        when(mockClock.instant()).thenReturn(NOW.plus(TTL));
+
+        store.put("third", "value");
+
+        assertEquals(new ExpiringStore.Stats(1, 2, 0), store.getStats());
+    }
+
+    @Test
+    void shouldEvictOldestEntryWhenFull() {
+        store.put("first", "value");
+        store.put("second", "value");
+        store.put("first", "updated");
+
+        store.put("third", "value");
+
+        assertNull(store.get("second"));
+        assertEquals("updated", store.get("first"));
+        assertEquals(new ExpiringStore.Stats(2, 0, 1), store.getStats());
+    }
+
+    @Test
+    void shouldPublishStatsOnMetricsEndpoint() {
+        store.put("first", "value");
+        store.put("second", "value");
+        store.put("third", "value");
+
+        RequestMetrics.getMetrics(mockContext);
+
+        ArgumentCaptor<String> metricsCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockContext).result(metricsCaptor.capture());
+        String metrics = metricsCaptor.getValue();
+        assertTrue(metrics.contains("stub_store_entries{store=\"test\"} 2"));
+        assertTrue(metrics.contains("stub_store_evicted_total{store=\"test\"} 1"));
+        assertTrue(metrics.contains("stub_store_expired_total{store=\"test\"} 0"));
+    }
+
+    @Test
+    void shouldRemoveEntry() {
+        store.put("key", "value");
+
+        assertEquals("value", store.remove("key"));
+        assertNull(store.get("key"));
+    }
+
+    @Test
+    void shouldReportStatsForAllStores() {
+        store.put("key", "value");
+
+        assertEquals(new ExpiringStore.Stats(1, 0, 0), ExpiringStore.getAllStats().get("test"));
+    }
+}
@@ -0,0 +1,121 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import uk.gov.di.ipv.stub.cred.auth.ClientVerifierRegistry.ClientKey;
+import uk.gov.di.ipv.stub.cred.utils.ES256SignatureVerifier;
+import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
+import uk.org.webcompere.systemstubs.jupiter.SystemStub;
+import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
+
+import java.security.KeyFactory;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PUBLIC_JWK_1;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.EC_PUBLIC_JWK_2;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.RSA_PRIVATE_KEY_JWK;
+
+@ExtendWith(SystemStubsExtension.class)
+class JarCacheTest {
+
+    @SystemStub
+    private final EnvironmentVariables environmentVariables =
+            new EnvironmentVariables("PRIVATE_ENCRYPTION_KEY_JWK", RSA_PRIVATE_KEY_JWK);
+
+    private final ES256SignatureVerifier es256SignatureVerifier = new ES256SignatureVerifier();
+
+    @Test
+    void getShouldDecryptEncryptedJar() throws Exception {
+        JarCache jarCache = new JarCache(10);
+
+        JarCache.DecryptedJar decryptedJar = jarCache.get(encryptedJar("subject"));
+
+        assertEquals("subject", decryptedJar.getClaimsSet().getSubject());
+        assertTrue(
+                decryptedJar.isSignatureValid(
+                        ClientKey.parse(EC_PUBLIC_JWK_1), es256SignatureVerifier));
+        assertFalse(
+                decryptedJar.isSignatureValid(
+                        ClientKey.parse(EC_PUBLIC_JWK_2), es256SignatureVerifier));
+    }
+
+    @Test
+    void getShouldAcceptUnencryptedJar() throws Exception {
+        JarCache jarCache = new JarCache(10);
+
+        JarCache.DecryptedJar decryptedJar = jarCache.get(signedJar("subject").serialize());
+
+        assertEquals("subject", decryptedJar.getClaimsSet().getSubject());
+    }
+
+    @Test
+    void getShouldReturnCachedJarForSameRequest() throws Exception {
+        JarCache jarCache = new JarCache(10);
+        String jar = encryptedJar("subject");
+
+        assertSame(jarCache.get(jar), jarCache.get(jar));
+        assertEquals(1, jarCache.size());
+    }
+
+    @Test
+    void getShouldEvictLeastRecentlyUsedJarWhenFull() throws Exception {
+        JarCache jarCache = new JarCache(2);
+        String firstJar = encryptedJar("first");
+        String secondJar = encryptedJar("second");
+        String thirdJar = encryptedJar("third");
+
+        JarCache.DecryptedJar first = jarCache.get(firstJar);
+        jarCache.get(secondJar);
+        jarCache.get(firstJar);
+        JarCache.DecryptedJar second = jarCache.get(secondJar);
+        jarCache.get(thirdJar);
+
+        assertEquals(2, jarCache.size());
+        assertSame(second, jarCache.get(secondJar));
+        assertNotSame(first, jarCache.get(firstJar));
+    }
+
+    private String encryptedJar(String subject) throws Exception {
+        JWEObject jweObject =
+                new JWEObject(
+                        new JWEHeader(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM),
+                        new Payload(signedJar(subject)));
+        jweObject.encrypt(new RSAEncrypter(RSAKey.parse(RSA_PRIVATE_KEY_JWK).toRSAPublicKey()));
+        return jweObject.serialize();
+    }
+
+    private SignedJWT signedJar(String subject) throws Exception {
+        ECPrivateKey privateKey =
+                (ECPrivateKey)
+                        KeyFactory.getInstance("EC")
+                                .generatePrivate(
+                                        new PKCS8EncodedKeySpec(
+                                                Base64.getDecoder().decode(EC_PRIVATE_KEY_1)));
+        SignedJWT signedJWT =
+                new SignedJWT(
+                        new JWSHeader(JWSAlgorithm.ES256),
+                        new JWTClaimsSet.Builder().subject(subject).build());
+        signedJWT.sign(new ECDSASigner(privateKey));
+        return signedJWT;
+    }
+}
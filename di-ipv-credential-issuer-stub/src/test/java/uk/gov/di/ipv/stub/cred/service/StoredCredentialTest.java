@@ -0,0 +1,59 @@
+package uk.gov.di.ipv.stub.cred.service;
+
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.openid.connect.sdk.claims.UserInfo;
+import io.javalin.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.stub.cred.config.CriType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.DCMAW_VC;
+
+class StoredCredentialTest {
+    private static final String SUBJECT = "urn:uuid:5d6d6833-8512-4e37-b5ea-be7de77948dd";
+
+    @Test
+    void shouldRenderSignedJwtForIdentityCheckCri() throws Exception {
+        StoredCredential credential =
+                StoredCredential.render(CriType.EVIDENCE_CRI_TYPE, SignedJWT.parse(DCMAW_VC));
+
+        assertEquals(SUBJECT, credential.subject());
+        assertEquals(SignedJWT.parse(DCMAW_VC).getJWTClaimsSet().getJWTID(), credential.jti());
+        assertEquals(HttpStatus.CREATED, credential.status());
+        assertEquals("application/jwt;charset=UTF-8", credential.contentType());
+        assertEquals(DCMAW_VC, new String(credential.responseBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldRenderUserInfoWithCredentialJwtForDocCheckingApp() throws Exception {
+        StoredCredential credential =
+                StoredCredential.render(CriType.DOC_CHECK_APP_CRI_TYPE, SignedJWT.parse(DCMAW_VC));
+
+        assertEquals(HttpStatus.CREATED, credential.status());
+        assertEquals("application/json", credential.contentType());
+        UserInfo userInfo = parse(credential);
+        assertEquals(SUBJECT, userInfo.getSubject().getValue());
+        assertEquals(
+                List.of(DCMAW_VC),
+                userInfo.getClaim("https://vocab.account.gov.uk/v1/credentialJWT"));
+    }
+
+    @Test
+    void shouldRenderPendingUserInfoForF2f() throws Exception {
+        StoredCredential credential =
+                StoredCredential.render(CriType.F2F_CRI_TYPE, SignedJWT.parse(DCMAW_VC));
+
+        assertEquals(HttpStatus.ACCEPTED, credential.status());
+        UserInfo userInfo = parse(credential);
+        assertEquals(SUBJECT, userInfo.getSubject().getValue());
+        assertEquals(
+                "pending", userInfo.getClaim("https://vocab.account.gov.uk/v1/credentialStatus"));
+    }
+
+    private static UserInfo parse(StoredCredential credential) throws Exception {
+        return UserInfo.parse(new String(credential.responseBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -5,6 +5,8 @@ import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.stub.cred.config.CriContext;
+import uk.gov.di.ipv.stub.cred.config.CriType;
 import uk.gov.di.ipv.stub.cred.validation.ValidationResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -73,4 +75,70 @@ public class TokenServiceTest {
         assertTrue(testResult.isValid());
         assertNull(testResult.getError());
     }
+
+    @Test
+    void shouldReadPayloadAndRequestedErrorFromStatelessAccessToken() throws Exception {
+        TokenService issuingInstance = new TokenService(new SealedTokenCodec(new byte[32]));
+        TokenService otherInstance = new TokenService(new SealedTokenCodec(new byte[32]));
+
+        AccessToken accessToken = issuingInstance.createStatelessAccessToken(PAYLOAD, "404");
+
+        String header = accessToken.toAuthorizationHeader();
+        assertTrue(otherInstance.validateAccessToken(header).isValid());
+        assertEquals(PAYLOAD, otherInstance.getPayload(header));
+        assertEquals("404", otherInstance.getRequestedCredentialError(header));
+    }
+
+    @Test
+    void shouldRejectStatelessAccessTokenSealedWithAnotherKey() throws Exception {
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        AccessToken accessToken =
+                new TokenService(new SealedTokenCodec(otherKey))
+                        .createStatelessAccessToken(PAYLOAD, null);
+
+        ValidationResult testResult =
+                new TokenService(new SealedTokenCodec(new byte[32]))
+                        .validateAccessToken(accessToken.toAuthorizationHeader());
+
+        assertFalse(testResult.isValid());
+        assertEquals(OAuth2Error.INVALID_CLIENT, testResult.getError());
+    }
+
+    @Test
+    void shouldRejectAccessTokenAsAnotherCri() throws Exception {
+        BearerAccessToken accessToken = new BearerAccessToken();
+        String header = accessToken.toAuthorizationHeader();
+        CriContext.call(
+                CriType.F2F_CRI_TYPE,
+                () -> {
+                    tokenService.persist(accessToken, PAYLOAD);
+                    return null;
+                });
+
+        ValidationResult testResult =
+                CriContext.call(
+                        CriType.EVIDENCE_CRI_TYPE, () -> tokenService.validateAccessToken(header));
+
+        assertFalse(testResult.isValid());
+        assertEquals(OAuth2Error.INVALID_CLIENT, testResult.getError());
+    }
+
+    @Test
+    void shouldRejectStatelessAccessTokenAsAnotherCri() throws Exception {
+        TokenService statelessTokenService = new TokenService(new SealedTokenCodec(new byte[32]));
+        AccessToken accessToken =
+                CriContext.call(
+                        CriType.F2F_CRI_TYPE,
+                        () -> statelessTokenService.createStatelessAccessToken(PAYLOAD, null));
+
+        String header = accessToken.toAuthorizationHeader();
+        assertNull(
+                CriContext.call(
+                        CriType.EVIDENCE_CRI_TYPE, () -> statelessTokenService.getPayload(header)));
+        assertEquals(
+                PAYLOAD,
+                CriContext.call(
+                        CriType.F2F_CRI_TYPE, () -> statelessTokenService.getPayload(header)));
+    }
 }
@@ -0,0 +1,165 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.UnauthorizedResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.service.ConfigService;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection.Delay;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection.Distribution;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection.Endpoint;
+import uk.gov.di.ipv.stub.cred.utils.FaultInjection.Profile;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FaultInjectionTest {
+    private static final String TEST_API_KEY = "test-api-key";
+
+    @Mock private Context mockContext;
+    @Mock private Handler mockHandler;
+    @Captor private ArgumentCaptor<Supplier<? extends CompletableFuture<?>>> futureCaptor;
+
+    @AfterEach
+    void tearDown() {
+        FaultInjection.setProfiles(Map.of());
+    }
+
+    @Test
+    void shouldPassThroughWhenEndpointHasNoProfile() throws Exception {
+        FaultInjection.setProfiles(Map.of(Endpoint.TOKEN, new Profile(null, 100, 0, 0, 0)));
+
+        FaultInjection.inject(Endpoint.CREDENTIAL, mockHandler).handle(mockContext);
+
+        verify(mockHandler).handle(mockContext);
+        verify(mockContext, never()).future(any());
+    }
+
+    @Test
+    void shouldRespondAfterDelayWithoutHoldingTheThread() throws Exception {
+        FaultInjection.setProfiles(
+                Map.of(
+                        Endpoint.TOKEN,
+                        new Profile(new Delay(Distribution.FIXED, 50, 0, 0), 0, 0, 0, 0)));
+
+        FaultInjection.inject(Endpoint.TOKEN, mockHandler).handle(mockContext);
+
+        verify(mockHandler).handle(mockContext);
+        verify(mockContext).future(futureCaptor.capture());
+        CompletableFuture<?> delayed = futureCaptor.getValue().get();
+        assertFalse(delayed.isDone());
+        delayed.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldInjectServerErrorsWithoutCallingHandler() throws Exception {
+        FaultInjection.setProfiles(Map.of(Endpoint.AUTHORIZE, new Profile(null, 100, 502, 0, 0)));
+
+        FaultInjection.inject(Endpoint.AUTHORIZE, mockHandler).handle(mockContext);
+
+        verify(mockHandler, never()).handle(any());
+        verify(mockContext).status(502);
+        verify(mockContext)
+                .json(Map.of("error", "server_error", "error_description", "Injected fault"));
+    }
+
+    @Test
+    void shouldInjectTimeouts() throws Exception {
+        FaultInjection.setProfiles(Map.of(Endpoint.JWKS, new Profile(null, 0, 0, 100, 0)));
+
+        FaultInjection.inject(Endpoint.JWKS, mockHandler).handle(mockContext);
+
+        verify(mockHandler, never()).handle(any());
+        verify(mockContext).status(HttpStatus.GATEWAY_TIMEOUT);
+        verify(mockContext).future(any());
+        assertTrue(
+                RequestMetrics.scrape()
+                        .matches(
+                                "(?s).*stub_fault_injection_total\\{endpoint=\"jwks\","
+                                        + "fault=\"timeout\"} [1-9].*"));
+    }
+
+    @Test
+    void logNormalDelayShouldBeCentredOnTheMedian() {
+        Delay delay = new Delay(Distribution.LOG_NORMAL, 200, 0, 0.5);
+        Random random = new Random(1);
+        long[] samples = new long[10_001];
+        Arrays.setAll(samples, i -> delay.sample(random));
+        Arrays.sort(samples);
+
+        assertEquals(200, samples[samples.length / 2], 10);
+        assertTrue(samples[samples.length - 1] > 400);
+    }
+
+    @Test
+    void shouldReplaceProfilesFromAdminEndpoint() {
+        when(mockContext.header("x-api-key")).thenReturn(TEST_API_KEY);
+        when(mockContext.body())
+                .thenReturn(
+                        "{\"CREDENTIAL\":{\"delay\":{\"distribution\":\"NORMAL\","
+                                + "\"millis\":100,\"stdDevMillis\":20},\"errorPercent\":1}}");
+
+        try (MockedStatic<ConfigService> mockedConfigService = mockApiKey()) {
+            FaultInjection.setProfiles(mockContext);
+        }
+
+        String active = "stub_fault_injection_profile_active{endpoint=\"credential\"} 1";
+        assertTrue(RequestMetrics.scrape().contains(active));
+    }
+
+    @Test
+    void shouldRejectInvalidProfilesFromAdminEndpoint() {
+        when(mockContext.header("x-api-key")).thenReturn(TEST_API_KEY);
+        when(mockContext.body()).thenReturn("{\"TOKEN\":{\"errorPercent\":150}}");
+
+        try (MockedStatic<ConfigService> mockedConfigService = mockApiKey()) {
+            assertThrows(BadRequestResponse.class, () -> FaultInjection.setProfiles(mockContext));
+        }
+    }
+
+    @Test
+    void shouldRejectAdminChangesWithoutApiKey() {
+        FaultInjection.setProfiles(Map.of(Endpoint.TOKEN, new Profile(null, 100, 0, 0, 0)));
+        when(mockContext.header("x-api-key")).thenReturn("invalid-api-key");
+
+        try (MockedStatic<ConfigService> mockedConfigService = mockApiKey()) {
+            assertThrows(
+                    UnauthorizedResponse.class, () -> FaultInjection.setProfiles(mockContext));
+            assertThrows(
+                    UnauthorizedResponse.class, () -> FaultInjection.clearProfiles(mockContext));
+        }
+
+        String active = "stub_fault_injection_profile_active{endpoint=\"token\"} 1";
+        assertTrue(RequestMetrics.scrape().contains(active));
+    }
+
+    private static MockedStatic<ConfigService> mockApiKey() {
+        MockedStatic<ConfigService> mockedConfigService = mockStatic(ConfigService.class);
+        mockedConfigService.when(ConfigService::getApiKey).thenReturn(TEST_API_KEY);
+        return mockedConfigService;
+    }
+}
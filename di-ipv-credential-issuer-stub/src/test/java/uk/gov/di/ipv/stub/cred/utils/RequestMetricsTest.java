@@ -0,0 +1,144 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.stub.cred.utils.RequestMetrics.Phase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestMetricsTest {
+    @Mock private Context mockContext;
+    @Mock private HttpServletResponse mockResponse;
+
+    @Test
+    void shouldCountRequestsByRouteAndStatus() throws Exception {
+        when(mockContext.statusCode()).thenReturn(200);
+        when(mockContext.res()).thenReturn(mockResponse);
+        Handler handler = RequestMetrics.timed("GET", "/test/counted", ctx -> {});
+
+        handler.handle(mockContext);
+        handler.handle(mockContext);
+
+        String metrics = RequestMetrics.scrape();
+        String labels = "method=\"GET\",route=\"/test/counted\"";
+        assertTrue(metrics.contains("stub_http_requests_total{" + labels + ",status=\"200\"} 2"));
+        assertTrue(metrics.contains("stub_http_request_duration_seconds_count{" + labels + "} 2"));
+    }
+
+    @Test
+    void shouldRecordStatusOfHttpResponseExceptions() {
+        when(mockContext.res()).thenReturn(mockResponse);
+        Handler handler =
+                RequestMetrics.timed(
+                        "POST",
+                        "/test/bad-request",
+                        ctx -> {
+                            throw new BadRequestResponse();
+                        });
+
+        assertThrows(BadRequestResponse.class, () -> handler.handle(mockContext));
+
+        String labels = "method=\"POST\",route=\"/test/bad-request\",status=\"400\"";
+        assertTrue(RequestMetrics.scrape().contains("stub_http_requests_total{" + labels + "} 1"));
+    }
+
+    @Test
+    void shouldAddServerTimingHeaderWithPhases() throws Exception {
+        when(mockContext.statusCode()).thenReturn(200);
+        when(mockContext.res()).thenReturn(mockResponse);
+        Handler handler =
+                RequestMetrics.timed(
+                        "GET",
+                        "/test/phases",
+                        ctx -> RequestMetrics.endPhase(Phase.VC_SIGN, System.nanoTime() - 1));
+
+        handler.handle(mockContext);
+
+        ArgumentCaptor<String> headerCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockContext).header(eq("Server-Timing"), headerCaptor.capture());
+        assertTrue(headerCaptor.getValue().matches("vc-sign;dur=[0-9.]+, total;dur=[0-9.]+"));
+    }
+
+    @Test
+    void shouldNotCarryPhasesRecordedOutsideARequestIntoTheNext() throws Exception {
+        when(mockContext.statusCode()).thenReturn(200);
+        when(mockContext.res()).thenReturn(mockResponse);
+        Handler handler = RequestMetrics.timed("GET", "/test/no-phases", ctx -> {});
+
+        RequestMetrics.endPhase(Phase.VC_SIGN, System.nanoTime() - 1);
+        handler.handle(mockContext);
+
+        ArgumentCaptor<String> headerCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockContext).header(eq("Server-Timing"), headerCaptor.capture());
+        assertTrue(headerCaptor.getValue().matches("total;dur=[0-9.]+"));
+    }
+
+    @Test
+    void shouldAddPhasesOfTasksPropagatedToOtherThreads() throws Exception {
+        when(mockContext.statusCode()).thenReturn(200);
+        when(mockContext.res()).thenReturn(mockResponse);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Handler handler =
+                    RequestMetrics.timed(
+                            "POST",
+                            "/test/propagated",
+                            ctx ->
+                                    executor.submit(
+                                                    RequestMetrics.propagate(
+                                                            () -> {
+                                                                RequestMetrics.endPhase(
+                                                                        Phase.JAR_DECRYPT,
+                                                                        System.nanoTime() - 1);
+                                                                return null;
+                                                            }))
+                                            .get());
+
+            handler.handle(mockContext);
+        }
+
+        ArgumentCaptor<String> headerCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockContext).header(eq("Server-Timing"), headerCaptor.capture());
+        assertTrue(headerCaptor.getValue().matches("jar-decrypt;dur=[0-9.]+, total;dur=[0-9.]+"));
+    }
+
+    @Test
+    void shouldNotAddServerTimingHeaderToCommittedResponse() throws Exception {
+        when(mockContext.statusCode()).thenReturn(200);
+        when(mockContext.res()).thenReturn(mockResponse);
+        when(mockResponse.isCommitted()).thenReturn(true);
+        Handler handler = RequestMetrics.timed("POST", "/test/streamed", ctx -> {});
+
+        handler.handle(mockContext);
+
+        verify(mockContext, never()).header(eq("Server-Timing"), anyString());
+    }
+
+    @Test
+    void histogramShouldInterpolateQuantilesWithinBuckets() {
+        RequestMetrics.Histogram histogram = new RequestMetrics.Histogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+
+        assertEquals(0.001, histogram.quantileSeconds(0.5), 0.0002);
+        assertEquals(0.001, histogram.quantileSeconds(0.99), 0.0002);
+    }
+}
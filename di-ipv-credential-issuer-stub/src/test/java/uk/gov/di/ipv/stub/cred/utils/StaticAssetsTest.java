@@ -0,0 +1,163 @@
+package uk.gov.di.ipv.stub.cred.utils;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StaticAssetsTest {
+    private static final byte[] CSS =
+            ".govuk-body { margin: 0; }\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private final StaticAssets staticAssets =
+            new StaticAssets(Map.of("/frontend.min.css", CSS, "/assets/images/crest.png", PNG));
+
+    @Mock private Context mockContext;
+
+    @Test
+    void shouldServeEachAssetUnderItsOwnAndFingerprintedName() {
+        String fingerprinted = staticAssets.fingerprintedPath("/frontend.min.css");
+
+        assertTrue(fingerprinted.matches("/frontend\\.min-[0-9a-f]{10}\\.css"));
+        assertEquals(StaticAssets.REVALIDATE, staticAssets.get("/frontend.min.css").cacheControl());
+        assertEquals(StaticAssets.IMMUTABLE, staticAssets.get(fingerprinted).cacheControl());
+        assertNotEquals(fingerprinted, staticAssets.fingerprintedPath("/assets/images/crest.png"));
+    }
+
+    @Test
+    void shouldRewriteReferencesToKnownAssets() {
+        String template =
+                "<link href=\"/frontend.min.css\"><img src=\"/assets/images/crest.png\">"
+                        + "<a href=\"/authorize\">";
+
+        String rewritten = staticAssets.rewriteReferences(template);
+
+        assertEquals(
+                "<link href=\""
+                        + staticAssets.fingerprintedPath("/frontend.min.css")
+                        + "\"><img src=\""
+                        + staticAssets.fingerprintedPath("/assets/images/crest.png")
+                        + "\"><a href=\"/authorize\">",
+                rewritten);
+    }
+
+    @Test
+    void shouldRewriteStylesheetUrlsToFingerprintedNames() {
+        byte[] stylesheet =
+                ".govuk-header { background: url(/assets/images/crest.png); }"
+                        .getBytes(StandardCharsets.UTF_8);
+        byte[] otherCrest = {(byte) 0x89, 'P', 'N', 'G', '2'};
+        StaticAssets withCrest =
+                new StaticAssets(
+                        Map.of("/header.css", stylesheet, "/assets/images/crest.png", PNG));
+        StaticAssets withOtherCrest =
+                new StaticAssets(
+                        Map.of("/header.css", stylesheet, "/assets/images/crest.png", otherCrest));
+
+        String fingerprinted = withCrest.fingerprintedPath("/header.css");
+
+        assertEquals(
+                ".govuk-header { background: url("
+                        + withCrest.fingerprintedPath("/assets/images/crest.png")
+                        + "); }",
+                new String(withCrest.get(fingerprinted).body(), StandardCharsets.UTF_8));
+        assertArrayEquals(
+                withCrest.get(fingerprinted).body(), withCrest.get("/header.css").body());
+        assertNotEquals(fingerprinted, withOtherCrest.fingerprintedPath("/header.css"));
+    }
+
+    @Test
+    void shouldServePrecompressedBodyWhenClientAcceptsGzip() throws IOException {
+        when(mockContext.header("If-None-Match")).thenReturn(null);
+        when(mockContext.header("Accept-Encoding")).thenReturn("gzip, deflate, br");
+
+        staticAssets.get("/frontend.min.css").serve(mockContext);
+
+        ArgumentCaptor<byte[]> bodyCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockContext).result(bodyCaptor.capture());
+        verify(mockContext).header("Content-Encoding", "gzip");
+        verify(mockContext).header("Vary", "Accept-Encoding");
+        verify(mockContext).contentType("text/css");
+        try (GZIPInputStream gzip =
+                new GZIPInputStream(new ByteArrayInputStream(bodyCaptor.getValue()))) {
+            assertArrayEquals(CSS, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldServeIdentityBodyForBinaryAssets() {
+        when(mockContext.header("If-None-Match")).thenReturn(null);
+
+        staticAssets.get("/assets/images/crest.png").serve(mockContext);
+
+        verify(mockContext).result(PNG);
+        verify(mockContext).contentType("image/png");
+        verify(mockContext, never()).header("Content-Encoding", "gzip");
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenEtagMatches() {
+        StaticAssets.Asset asset = staticAssets.get("/frontend.min.css");
+        when(mockContext.header("If-None-Match")).thenReturn(asset.etag());
+
+        asset.serve(mockContext);
+
+        verify(mockContext).status(HttpStatus.NOT_MODIFIED);
+        verify(mockContext, never()).result(any(byte[].class));
+    }
+
+    @Test
+    void shouldNotRevalidateGzippedBodyAgainstIdentityEtag() {
+        StaticAssets.Asset asset = staticAssets.get("/frontend.min.css");
+        when(mockContext.header("If-None-Match")).thenReturn(asset.etag());
+        when(mockContext.header("Accept-Encoding")).thenReturn("gzip");
+
+        asset.serve(mockContext);
+
+        assertNotEquals(asset.etag(), asset.gzippedEtag());
+        verify(mockContext).header("ETag", asset.gzippedEtag());
+        verify(mockContext, never()).status(HttpStatus.NOT_MODIFIED);
+        verify(mockContext).result(asset.gzipped());
+    }
+
+    @Test
+    void shouldHonourRefusedGzip() {
+        assertTrue(StaticAssets.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(StaticAssets.acceptsGzip("*"));
+        assertFalse(StaticAssets.acceptsGzip("gzip;q=0"));
+        assertFalse(StaticAssets.acceptsGzip("identity"));
+        assertFalse(StaticAssets.acceptsGzip(null));
+    }
+
+    @Test
+    void shouldLoadBundledFrontendAssets() {
+        StaticAssets bundled = StaticAssets.load("/public");
+
+        String css = bundled.fingerprintedPath("/govuk-frontend-4.7.0.min.css");
+        assertNotEquals("/govuk-frontend-4.7.0.min.css", css);
+        assertNotNull(bundled.get(css));
+        assertNotNull(bundled.get(css).gzipped());
+    }
+}
@@ -272,7 +272,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -290,7 +290,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -308,7 +308,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -326,7 +326,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -345,7 +345,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -364,7 +364,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -384,7 +384,7 @@ class ValidatorTest {
 
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -402,10 +402,10 @@ class ValidatorTest {
                         RequestParamConstants.GRANT_TYPE, GrantType.AUTHORIZATION_CODE.getValue(),
                         RequestParamConstants.AUTH_CODE, "a-legit-auth-code"));
 
-        when(mockAuthCodeService.getPayload("a-legit-auth-code")).thenReturn(null);
+        when(mockAuthCodeService.getPayload("a-legit-auth-code", null)).thenReturn(null);
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -424,10 +424,10 @@ class ValidatorTest {
                         RequestParamConstants.AUTH_CODE, "a-legit-auth-code",
                         RequestParamConstants.REDIRECT_URI, ""));
 
-        when(mockAuthCodeService.getPayload("a-legit-auth-code")).thenReturn("something");
+        when(mockAuthCodeService.getPayload("a-legit-auth-code", null)).thenReturn("something");
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         ErrorObject validationError = validationResult.getError();
         assertFalse(validationResult.isValid());
@@ -446,10 +446,10 @@ class ValidatorTest {
                         RequestParamConstants.AUTH_CODE, "a-legit-auth-code",
                         RequestParamConstants.REDIRECT_URI, "https://example.com"));
 
-        when(mockAuthCodeService.getPayload("a-legit-auth-code")).thenReturn("something");
+        when(mockAuthCodeService.getPayload("a-legit-auth-code", null)).thenReturn("something");
         Validator validator = new Validator(mockAuthCodeService);
 
-        ValidationResult validationResult = validator.validateTokenRequest(mockContext);
+        ValidationResult validationResult = validator.validateTokenRequest(mockContext, null);
 
         assertTrue(validationResult.isValid());
     }
@@ -17,9 +17,12 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import java.security.KeyFactory;
 import java.security.interfaces.ECPublicKey;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -35,8 +38,10 @@ import static com.nimbusds.jwt.JWTClaimNames.SUBJECT;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static uk.gov.di.ipv.stub.cred.config.CriType.ADDRESS_CRI_TYPE;
 import static uk.gov.di.ipv.stub.cred.fixtures.TestFixtures.CLIENT_CONFIG;
@@ -300,4 +305,75 @@ public class VerifiableCredentialGeneratorTest {
                 ADDRESS_CREDENTIAL_TYPE,
                 claimsSetTree.get(VC_CLAIM).path(VC_TYPE).path(1).asText());
     }
+
+    @Test
+    void shouldReturnMemoizedCredentialForRepeatedInput() throws Exception {
+        var memoizingGenerator =
+                new VerifiableCredentialGenerator(
+                        new VcMemo(10, Duration.ofMinutes(5), Clock.systemUTC()));
+        var evidence = Map.<String, Object>of("type", "CriStubCheck", "strengthScore", 4);
+        var credential =
+                new Credential(Map.of("a", 1, "b", 2), evidence, "user-id", "clientIdValid", 1L);
+        var reordered =
+                new Credential(
+                        new LinkedHashMap<>(Map.of("b", 2, "a", 1)),
+                        evidence,
+                        "user-id",
+                        "clientIdValid",
+                        1L);
+
+        var first = memoizingGenerator.generate(credential, false);
+
+        assertSame(first, memoizingGenerator.generate(reordered, false));
+        assertNotEquals(
+                first.serialize(),
+                memoizingGenerator
+                        .generate(
+                                new Credential(
+                                        Map.of("a", 1), evidence, "user-id", "clientIdValid", 1L),
+                                false)
+                        .serialize());
+    }
+
+    @Test
+    void shouldResignMemoizedClaimsWithFreshJtiAndNbf() throws Exception {
+        var memoizingGenerator =
+                new VerifiableCredentialGenerator(
+                        new VcMemo(10, Duration.ofMinutes(5), Clock.systemUTC()));
+        var credential = new Credential(Map.of(), Map.of(), "user-id", "clientIdValid", 1L);
+        var first = memoizingGenerator.generate(credential, false);
+
+        var unique = memoizingGenerator.generate(credential, true);
+        var laterNbf =
+                memoizingGenerator.generate(
+                        new Credential(Map.of(), Map.of(), "user-id", "clientIdValid", 2L), false);
+
+        assertNotEquals(first.getJWTClaimsSet().getJWTID(), unique.getJWTClaimsSet().getJWTID());
+        assertEquals(
+                first.getJWTClaimsSet().getClaim(VC_CLAIM),
+                unique.getJWTClaimsSet().getClaim(VC_CLAIM));
+        assertEquals(2L, laterNbf.getJWTClaimsSet().getNotBeforeTime().getTime() / 1000);
+        var ecPublicKey =
+                (ECPublicKey)
+                        KeyFactory.getInstance(EC_ALGO)
+                                .generatePublic(
+                                        new X509EncodedKeySpec(
+                                                Base64.getDecoder().decode(EC_PUBLIC_KEY_1)));
+        assertTrue(
+                SignedJWT.parse(unique.serialize()).verify(new ECDSAVerifier(ecPublicKey)));
+    }
+
+    @Test
+    void shouldNotReturnMemoizedCredentialOnceExpired() throws Exception {
+        var memoizingGenerator =
+                new VerifiableCredentialGenerator(
+                        new VcMemo(10, Duration.ZERO, Clock.systemUTC()));
+        var credential = new Credential(Map.of(), Map.of(), "user-id", "clientIdValid", null);
+
+        var first = memoizingGenerator.generate(credential, false);
+
+        assertNotEquals(
+                first.getJWTClaimsSet().getJWTID(),
+                memoizingGenerator.generate(credential, false).getJWTClaimsSet().getJWTID());
+    }
 }
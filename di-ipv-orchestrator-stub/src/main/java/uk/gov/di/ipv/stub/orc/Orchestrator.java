@@ -2,6 +2,7 @@ package uk.gov.di.ipv.stub.orc;
 
 import io.javalin.Javalin;
 import io.javalin.config.RoutesConfig;
+import io.javalin.http.Handler;
 import io.javalin.rendering.template.JavalinMustache;
 import uk.gov.di.ipv.stub.orc.config.OrchestratorConfig;
 import uk.gov.di.ipv.stub.orc.handlers.BasicAuthHandler;
@@ -9,6 +10,7 @@ import uk.gov.di.ipv.stub.orc.handlers.HomeHandler;
 import uk.gov.di.ipv.stub.orc.handlers.IpvHandler;
 import uk.gov.di.ipv.stub.orc.handlers.JwksHandler;
 import uk.gov.di.ipv.stub.orc.utils.EvcsAccessTokenGenerator;
+import uk.gov.di.ipv.stub.orc.utils.RequestMetrics;
 
 public class Orchestrator {
 
@@ -23,6 +25,8 @@ public class Orchestrator {
                 Javalin.create(
                         config -> {
                             config.startup.showJavalinBanner = false;
+                            config.concurrency.useVirtualThreads =
+                                    OrchestratorConfig.VIRTUAL_THREADS_ENABLED;
                             config.staticFiles.add("/public");
                             config.fileRenderer(new JavalinMustache());
 
@@ -36,11 +40,12 @@ public class Orchestrator {
             BasicAuthHandler basicAuthHandler = new BasicAuthHandler();
             routesConfig.before(basicAuthHandler::authFilter);
         }
-        routesConfig.get("/", HomeHandler::serveHomePage);
-        routesConfig.get("/authorize", ipvHandler::doAuthorize);
-        routesConfig.get("/authorize-error", ipvHandler::doAuthorizeError);
-        routesConfig.get("/callback", ipvHandler::doCallback);
-        routesConfig.get("/.well-known/jwks.json", jwksHandler::getResource);
+        get(routesConfig, "/", HomeHandler::serveHomePage);
+        get(routesConfig, "/authorize", ipvHandler::doAuthorize);
+        get(routesConfig, "/authorize-error", ipvHandler::doAuthorizeError);
+        get(routesConfig, "/callback", ipvHandler::doCallback);
+        get(routesConfig, "/.well-known/jwks.json", jwksHandler::getResource);
+        routesConfig.get(RequestMetrics.METRICS_ENDPOINT, RequestMetrics::getMetrics);
 
         routesConfig.error(
                 500,
@@ -48,4 +53,8 @@ public class Orchestrator {
                         ctx.html(
                                 "<html><body><h1>Waaargh!!! Da Orc Boss sez we'ze got some gremlinz in da gearz.</h1></body></html>"));
     }
+
+    private static void get(RoutesConfig routesConfig, String path, Handler handler) {
+        routesConfig.get(path, RequestMetrics.timed("GET", path, handler));
+    }
 }
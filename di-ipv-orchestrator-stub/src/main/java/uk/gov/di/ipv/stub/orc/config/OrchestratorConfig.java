@@ -50,6 +50,8 @@ public class OrchestratorConfig {
             getConfigValue("IPV_CORE_AUDIENCE", "https://identity.local.account.gov.uk");
     public static final boolean BASIC_AUTH_ENABLE =
             Boolean.parseBoolean(getConfigValue("ORCHESTRATOR_BASIC_AUTH_ENABLE", "false"));
+    public static final boolean VIRTUAL_THREADS_ENABLED =
+            Boolean.parseBoolean(getConfigValue("ORCHESTRATOR_VIRTUAL_THREADS_ENABLED", "false"));
     public static final String BASIC_AUTH_USERNAME =
             getConfigValue("ORCHESTRATOR_BASIC_AUTH_USERNAME");
     public static final String BASIC_AUTH_PASSWORD =
@@ -37,6 +37,8 @@ import uk.gov.di.ipv.stub.orc.exceptions.OauthException;
 import uk.gov.di.ipv.stub.orc.exceptions.OrchestratorStubException;
 import uk.gov.di.ipv.stub.orc.utils.EvcsAccessTokenGenerator;
 import uk.gov.di.ipv.stub.orc.utils.JwtBuilder;
+import uk.gov.di.ipv.stub.orc.utils.RequestMetrics;
+import uk.gov.di.ipv.stub.orc.utils.RequestMetrics.Phase;
 
 import java.io.IOException;
 import java.net.URI;
@@ -393,11 +395,14 @@ public class IpvHandler {
     }
 
     private HTTPResponse sendHttpRequest(HTTPRequest httpRequest) {
+        long start = RequestMetrics.startPhase();
         try {
             return httpRequest.send();
         } catch (IOException | SerializeException exception) {
             LOGGER.error("Failed to send a http request", exception);
             throw new RuntimeException("Failed to send a http request", exception);
+        } finally {
+            RequestMetrics.endPhase(Phase.OUTBOUND_HTTP, start);
         }
     }
 
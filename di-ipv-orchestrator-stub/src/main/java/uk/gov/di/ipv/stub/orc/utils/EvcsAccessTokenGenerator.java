@@ -18,6 +18,7 @@ import uk.gov.di.ipv.stub.orc.exceptions.JWSCreationException;
 import uk.gov.di.ipv.stub.orc.exceptions.OrchestratorStubException;
 import uk.gov.di.ipv.stub.orc.models.EvcsTokenRequest;
 import uk.gov.di.ipv.stub.orc.models.EvcsTokenResponse;
+import uk.gov.di.ipv.stub.orc.utils.RequestMetrics.Phase;
 
 import java.io.IOException;
 import java.net.URI;
@@ -96,10 +97,13 @@ public class EvcsAccessTokenGenerator {
     }
 
     private HTTPResponse sendHttpRequest(HTTPRequest request) throws OrchestratorStubException {
+        long start = RequestMetrics.startPhase();
         try {
             return request.send();
         } catch (IOException e) {
             throw new OrchestratorStubException(e);
+        } finally {
+            RequestMetrics.endPhase(Phase.OUTBOUND_HTTP, start);
         }
     }
 
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.di.ipv.stub.orc.exceptions.JWSCreationException;
 import uk.gov.di.ipv.stub.orc.models.JarClaims;
+import uk.gov.di.ipv.stub.orc.utils.RequestMetrics.Phase;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
@@ -122,7 +123,9 @@ public class JwtBuilder {
     public static SignedJWT createSignedJwt(JWTClaimsSet claims, boolean isAuth)
             throws JOSEException, NoSuchAlgorithmException, InvalidKeySpecException {
         var signedJwt = new SignedJWT(isAuth ? AUTH_JWS_HEADER : ORCH_JWS_HEADER, claims);
+        long start = RequestMetrics.startPhase();
         signedJwt.sign(isAuth ? AUTH_SIGNER : ORCH_SIGNER);
+        RequestMetrics.endPhase(Phase.JAR_SIGN, start);
         return signedJwt;
     }
 
@@ -136,7 +139,9 @@ public class JwtBuilder {
                                 .keyID(encryptionKey.getKeyID())
                                 .build(),
                         new Payload(signedJwt));
+        long start = RequestMetrics.startPhase();
         jweObject.encrypt(new RSAEncrypter(encryptionKey));
+        RequestMetrics.endPhase(Phase.JAR_ENCRYPT, start);
         return EncryptedJWT.parse(jweObject.serialize());
     }
 